@@ -0,0 +1,80 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+import com.github.yyyumeniku.reanim.core.AnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+
+/**
+ * Pose evaluation on a standalone controller, in steady playback and mid-transition.
+ *
+ * The frame clock is never advanced here, so the per-frame pose memo is off and
+ * every call evaluates the animation. The controller is not ticked either, so a
+ * started transition stays in progress for the whole run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnimationControllerBenchmark {
+    
+    private static final int STEPS = 16;
+    
+    private AnimationController steady;
+    private AnimationController transitioning;
+    private int step;
+    
+    @Setup
+    public void setup() {
+        BenchmarkAnimations.register();
+        
+        // Private scheduler so nothing leaks into the global CLIENT/SERVER sets
+        AnimationTickScheduler scheduler = new AnimationTickScheduler();
+        steady = new AnimationController(null, scheduler);
+        steady.play(BenchmarkAnimations.WAVE);
+        
+        transitioning = new AnimationController(null, scheduler);
+        transitioning.play(BenchmarkAnimations.WALK);
+        transitioning.play(BenchmarkAnimations.WAVE, 10);
+    }
+    
+    private float nextPartialTicks() {
+        step = (step + 1) & (STEPS - 1);
+        return step / (float) STEPS;
+    }
+    
+    @Benchmark
+    public IPose getCurrentPoseSteady() {
+        return steady.getCurrentPose(nextPartialTicks());
+    }
+    
+    @Benchmark
+    public PoseBuffer getCurrentPoseBufferSteady() {
+        return steady.getCurrentPoseBuffer(nextPartialTicks());
+    }
+    
+    @Benchmark
+    public IPose getCurrentPoseTransition() {
+        return transitioning.getCurrentPose(nextPartialTicks());
+    }
+    
+    @Benchmark
+    public PoseBuffer getCurrentPoseBufferTransition() {
+        return transitioning.getCurrentPoseBuffer(nextPartialTicks());
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import com.github.yyyumeniku.reanim.animation.KeyframeAnimation;
+import com.github.yyyumeniku.reanim.animation.StaticPoseAnimation;
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+import com.github.yyyumeniku.reanim.api.PoseBuilder;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Animations shared by the benchmarks, registered without starting Minecraft.
+ */
+final class BenchmarkAnimations {
+    
+    static final ResourceLocation WAVE = new ResourceLocation("reanim_bench", "wave");
+    static final ResourceLocation WALK = new ResourceLocation("reanim_bench", "walk");
+    static final ResourceLocation HOLD = new ResourceLocation("reanim_bench", "hold");
+    
+    static final IPose RAISED = PoseBuilder.create()
+        .rightArm(-2.2f, -0.2f, 0.35f)
+        .leftArm(-2.2f, 0.2f, -0.35f)
+        .body(0.25f, 0, 0)
+        .head(-0.15f, 0, 0)
+        .build();
+    
+    static final IPose CROUCHED = PoseBuilder.create()
+        .rightLeg(0.6f, 0, 0)
+        .leftLeg(0.6f, 0, 0)
+        .body(0.5f, 0, 0)
+        .build();
+    
+    private static boolean registered;
+    
+    private BenchmarkAnimations() {}
+    
+    /** Register the shared animations once per benchmark JVM */
+    static synchronized void register() {
+        if (registered) return;
+        
+        AnimationRegistry.registerOrReplace(KeyframeAnimation.builder(WAVE, 40)
+            .looping(true)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X, 0, 0)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X, 10, -2.5f)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_Z, 10, 0.4f)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_Z, 20, -0.4f)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X, 30, -2.5f)
+            .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X, 40, 0)
+            .rotation(PoseBuffer.PART_HEAD, PoseBuffer.AXIS_Y, 0, -0.2f)
+            .rotation(PoseBuffer.PART_HEAD, PoseBuffer.AXIS_Y, 20, 0.2f)
+            .rotation(PoseBuffer.PART_HEAD, PoseBuffer.AXIS_Y, 40, -0.2f)
+            .build());
+        AnimationRegistry.registerOrReplace(KeyframeAnimation.builder(WALK, 20)
+            .looping(true)
+            .pose(0, CROUCHED)
+            .pose(10, RAISED)
+            .pose(20, CROUCHED)
+            .build());
+        AnimationRegistry.registerOrReplace(new StaticPoseAnimation(HOLD, RAISED, 0.05f));
+        AnimationRegistry.freeze();
+        registered = true;
+    }
+}
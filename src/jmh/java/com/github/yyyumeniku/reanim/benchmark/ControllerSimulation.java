@@ -0,0 +1,214 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import com.github.yyyumeniku.reanim.core.AnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+import com.github.yyyumeniku.reanim.core.FrameClock;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Headless scaling run: thousands of controllers ticked and rendered at game-like
+ * rates, without Minecraft.
+ *
+ * Each simulated second runs {@code tickRate} scheduler ticks and {@code frameRate}
+ * render frames, interleaved as the game would. Every frame evaluates the pose of
+ * the {@code visible} fraction of controllers at camera distances spread over the
+ * detail bands, and {@code switches} controllers per second start a new animation
+ * with a transition. Reports throughput, allocation rate and tick/frame latency
+ * percentiles. With {@code maxTickP99Us} or {@code maxFrameP99Us} set, the run
+ * exits with status 1 when the limit is exceeded, for use as a regression check.
+ *
+ * Options are {@code key=value} arguments, e.g. {@code controllers=10000 seconds=30}.
+ */
+public final class ControllerSimulation {
+    
+    private static final ResourceLocation[] ANIMATIONS = {
+        BenchmarkAnimations.WAVE, BenchmarkAnimations.WALK, BenchmarkAnimations.HOLD
+    };
+    
+    private final int controllerCount;
+    private final int tickRate;
+    private final int frameRate;
+    private final float visible;
+    private final int switchesPerSecond;
+    private final int seconds;
+    private final int warmupSeconds;
+    
+    private final Random random = new Random(42);
+    private AnimationTickScheduler scheduler;
+    private AnimationController[] controllers;
+    private double[] distancesSq;
+    
+    private ControllerSimulation(Map<String, String> options) {
+        this.controllerCount = intOption(options, "controllers", 5000);
+        this.tickRate = intOption(options, "tickRate", 20);
+        this.frameRate = intOption(options, "frameRate", 60);
+        this.visible = Float.parseFloat(options.getOrDefault("visible", "0.25"));
+        this.switchesPerSecond = intOption(options, "switches", 200);
+        this.seconds = intOption(options, "seconds", 20);
+        this.warmupSeconds = intOption(options, "warmup", 5);
+    }
+    
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        
+        ControllerSimulation simulation = new ControllerSimulation(options);
+        simulation.setup();
+        simulation.run(simulation.warmupSeconds);
+        Result result = simulation.run(simulation.seconds);
+        result.print(simulation);
+        
+        boolean failed = result.exceeds("tick", result.tickNanos, options.get("maxTickP99Us"))
+            | result.exceeds("frame", result.frameNanos, options.get("maxFrameP99Us"));
+        if (failed) {
+            System.exit(1);
+        }
+    }
+    
+    private void setup() {
+        BenchmarkAnimations.register();
+        
+        scheduler = new AnimationTickScheduler();
+        controllers = new AnimationController[controllerCount];
+        distancesSq = new double[controllerCount];
+        for (int i = 0; i < controllerCount; i++) {
+            controllers[i] = new AnimationController(null, scheduler);
+            controllers[i].play(ANIMATIONS[i % ANIMATIONS.length]);
+            controllers[i].seek(random.nextInt(40));
+            // Uniform over 0..96 blocks, so all detail bands are exercised
+            double distance = random.nextDouble() * 96;
+            distancesSq[i] = distance * distance;
+        }
+    }
+    
+    private Result run(int runSeconds) {
+        int ticks = runSeconds * tickRate;
+        int frames = runSeconds * frameRate;
+        int visibleCount = Math.max(0, Math.min(controllerCount, (int) (controllerCount * visible)));
+        int switchesPerTick = Math.max(0, switchesPerSecond / Math.max(1, tickRate));
+        
+        Result result = new Result(ticks, frames, visibleCount);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long allocatedBefore = allocatedBytes(threads);
+        long start = System.nanoTime();
+        
+        int tick = 0;
+        int frame = 0;
+        while (tick < ticks || frame < frames) {
+            // Interleave so that frame f happens at simulated time f / frameRate
+            boolean tickNext = frame >= frames || (tick < ticks && (long) tick * frameRate <= (long) frame * tickRate);
+            if (tickNext) {
+                long t0 = System.nanoTime();
+                for (int i = 0; i < switchesPerTick; i++) {
+                    AnimationController controller = controllers[random.nextInt(controllerCount)];
+                    controller.play(ANIMATIONS[random.nextInt(ANIMATIONS.length)], 5);
+                }
+                scheduler.tick();
+                result.tickNanos[tick++] = System.nanoTime() - t0;
+            } else {
+                float partialTicks = (frame * (float) tickRate / frameRate) % 1.0f;
+                long t0 = System.nanoTime();
+                FrameClock.advance();
+                for (int i = 0; i < visibleCount; i++) {
+                    controllers[i].getCurrentPoseBuffer(partialTicks, distancesSq[i]);
+                }
+                result.frameNanos[frame++] = System.nanoTime() - t0;
+            }
+        }
+        
+        result.wallNanos = System.nanoTime() - start;
+        result.allocatedBytes = allocatedBytes(threads) - allocatedBefore;
+        return result;
+    }
+    
+    /** Bytes allocated by this thread so far, or -1 if the JVM can't tell */
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+    
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+    
+    private static final class Result {
+        final long[] tickNanos;
+        final long[] frameNanos;
+        final int visibleCount;
+        long wallNanos;
+        long allocatedBytes;
+        
+        Result(int ticks, int frames, int visibleCount) {
+            this.tickNanos = new long[ticks];
+            this.frameNanos = new long[frames];
+            this.visibleCount = visibleCount;
+        }
+        
+        void print(ControllerSimulation simulation) {
+            double wallSeconds = wallNanos / 1.0e9;
+            System.out.printf(Locale.ROOT, "%d controllers, %d visible, %d ticks/s, %d frames/s, %d switches/s, %d s simulated in %.2f s%n",
+                simulation.controllerCount, visibleCount, simulation.tickRate, simulation.frameRate,
+                simulation.switchesPerSecond, simulation.seconds, wallSeconds);
+            System.out.printf(Locale.ROOT, "Throughput: %.0f controller ticks/s, %.0f pose requests/s%n",
+                (double) tickNanos.length * simulation.controllerCount / wallSeconds,
+                (double) frameNanos.length * visibleCount / wallSeconds);
+            if (allocatedBytes >= 0) {
+                System.out.printf(Locale.ROOT, "Allocation: %.2f MB/s, %.1f bytes per tick+frame%n",
+                    allocatedBytes / wallSeconds / (1024 * 1024),
+                    (double) allocatedBytes / Math.max(1, tickNanos.length + frameNanos.length));
+            } else {
+                System.out.println("Allocation: not supported by this JVM");
+            }
+            printLatency("Tick ", tickNanos);
+            printLatency("Frame", frameNanos);
+            System.out.println("Scheduled after run: " + simulation.scheduler.size());
+        }
+        
+        boolean exceeds(String name, long[] samples, String limitMicros) {
+            if (limitMicros == null) return false;
+            double p99 = percentile(sorted(samples), 0.99) / 1000.0;
+            double limit = Double.parseDouble(limitMicros);
+            if (p99 <= limit) return false;
+            System.out.printf(Locale.ROOT, "FAIL: %s p99 %.1f us exceeds %.1f us%n", name, p99, limit);
+            return true;
+        }
+        
+        private static void printLatency(String name, long[] samples) {
+            if (samples.length == 0) return;
+            long[] sorted = sorted(samples);
+            System.out.printf(Locale.ROOT, "%s latency (us): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n", name,
+                percentile(sorted, 0.50) / 1000.0, percentile(sorted, 0.90) / 1000.0, percentile(sorted, 0.99) / 1000.0,
+                percentile(sorted, 0.999) / 1000.0, sorted[sorted.length - 1] / 1000.0);
+        }
+        
+        private static long[] sorted(long[] samples) {
+            long[] copy = samples.clone();
+            Arrays.sort(copy);
+            return copy;
+        }
+        
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
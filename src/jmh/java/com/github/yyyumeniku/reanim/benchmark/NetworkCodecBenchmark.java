@@ -0,0 +1,118 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.yyyumeniku.reanim.core.AnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+import com.github.yyyumeniku.reanim.network.AnimationPalette;
+import com.github.yyyumeniku.reanim.network.AnimationPlayMessage;
+import com.github.yyyumeniku.reanim.network.AnimationSyncMessage;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Encoding and decoding the animation packets on a plain heap buffer.
+ * Only the codecs run; no network handler or game state is involved.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NetworkCodecBenchmark {
+    
+    /** Entries per sync packet; 1 is a single change, larger values a coalesced batch */
+    @Param({"1", "32"})
+    public int entries;
+    
+    /** Whether animations go by palette index (after a login handshake) or by name */
+    @Param({"true", "false"})
+    public boolean indexed;
+    
+    private AnimationSyncMessage syncMessage;
+    private AnimationPlayMessage playMessage;
+    private ByteBuf encodeBuffer;
+    private ByteBuf syncBytes;
+    private ByteBuf playBytes;
+    
+    @Setup
+    public void setup() {
+        BenchmarkAnimations.register();
+        AnimationPalette.resetServer();
+        if (indexed) {
+            AnimationPalette.createHandshake();
+        }
+        
+        AnimationTickScheduler scheduler = new AnimationTickScheduler();
+        List<AnimationSyncMessage.Entry> list = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            AnimationController controller = new AnimationController(null, scheduler);
+            controller.play((i & 1) == 0 ? BenchmarkAnimations.WAVE : BenchmarkAnimations.WALK);
+            controller.seek(i % 20);
+            if (i % 4 == 0) {
+                controller.setSpeed(1.5f);
+            }
+            list.add(new AnimationSyncMessage.Entry(1000 + i, controller, 24000L * 7 + i));
+        }
+        syncMessage = new AnimationSyncMessage(list);
+        playMessage = new AnimationPlayMessage(BenchmarkAnimations.WAVE);
+        
+        encodeBuffer = Unpooled.buffer(256);
+        syncBytes = Unpooled.buffer(256);
+        syncMessage.toBytes(syncBytes);
+        playBytes = Unpooled.buffer(64);
+        playMessage.toBytes(playBytes);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        AnimationPalette.resetServer();
+    }
+    
+    @Benchmark
+    public ByteBuf encodeSync() {
+        encodeBuffer.clear();
+        syncMessage.toBytes(encodeBuffer);
+        return encodeBuffer;
+    }
+    
+    @Benchmark
+    public AnimationSyncMessage decodeSync() {
+        syncBytes.readerIndex(0);
+        AnimationSyncMessage message = new AnimationSyncMessage();
+        message.fromBytes(syncBytes);
+        return message;
+    }
+    
+    @Benchmark
+    public ByteBuf encodePlay() {
+        encodeBuffer.clear();
+        playMessage.toBytes(encodeBuffer);
+        return encodeBuffer;
+    }
+    
+    @Benchmark
+    public AnimationPlayMessage decodePlay() {
+        playBytes.readerIndex(0);
+        AnimationPlayMessage message = new AnimationPlayMessage();
+        message.fromBytes(playBytes);
+        return message;
+    }
+}
@@ -0,0 +1,92 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+import com.github.yyyumeniku.reanim.core.PoseInterpolator;
+
+/**
+ * Blending two poses, through the allocating and the buffer-writing overloads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoseInterpolatorBenchmark {
+    
+    private static final int STEPS = 64;
+    
+    private IPose fromPose;
+    private IPose toPose;
+    private PoseBuffer fromBuffer;
+    private PoseBuffer toBuffer;
+    private final PoseBuffer out = new PoseBuffer();
+    private final float[] progress = new float[STEPS];
+    private int step;
+    
+    @Setup
+    public void setup() {
+        fromPose = BenchmarkAnimations.CROUCHED;
+        toPose = BenchmarkAnimations.RAISED;
+        fromBuffer = new PoseBuffer(fromPose);
+        toBuffer = new PoseBuffer(toPose);
+        for (int i = 0; i < STEPS; i++) {
+            // Stay inside (0, 1) so no call takes the copy-one-side shortcut
+            progress[i] = (i + 0.5f) / STEPS;
+        }
+    }
+    
+    private float nextProgress() {
+        step = (step + 1) & (STEPS - 1);
+        return progress[step];
+    }
+    
+    @Benchmark
+    public IPose interpolate() {
+        return PoseInterpolator.interpolate(fromPose, toPose, nextProgress());
+    }
+    
+    @Benchmark
+    public PoseBuffer interpolateIntoPoses() {
+        return PoseInterpolator.interpolateInto(fromPose, toPose, nextProgress(), out);
+    }
+    
+    @Benchmark
+    public PoseBuffer interpolateIntoBuffers() {
+        return PoseInterpolator.interpolateInto(fromBuffer, toBuffer, nextProgress(), out);
+    }
+    
+    @Benchmark
+    public IPose easeIn() {
+        return PoseInterpolator.easeIn(fromPose, toPose, nextProgress());
+    }
+    
+    @Benchmark
+    public PoseBuffer easeInInto() {
+        return PoseInterpolator.easeIn(fromBuffer, toBuffer, nextProgress(), out);
+    }
+    
+    @Benchmark
+    public PoseBuffer easeOutInto() {
+        return PoseInterpolator.easeOut(fromBuffer, toBuffer, nextProgress(), out);
+    }
+    
+    @Benchmark
+    public PoseBuffer easeInOutInto() {
+        return PoseInterpolator.easeInOut(fromBuffer, toBuffer, nextProgress(), out);
+    }
+}
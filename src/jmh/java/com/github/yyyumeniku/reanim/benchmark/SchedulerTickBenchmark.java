@@ -0,0 +1,59 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.yyyumeniku.reanim.core.AnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+
+/**
+ * One scheduler tick over many animating controllers.
+ * Controllers run on their local clock, so every one of them stays scheduled
+ * and is ticked each time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerTickBenchmark {
+    
+    @Param({"10000"})
+    public int controllers;
+    
+    private AnimationTickScheduler scheduler;
+    
+    @Setup
+    public void setup() {
+        BenchmarkAnimations.register();
+        
+        scheduler = new AnimationTickScheduler();
+        for (int i = 0; i < controllers; i++) {
+            AnimationController controller = new AnimationController(null, scheduler);
+            controller.play((i & 1) == 0 ? BenchmarkAnimations.WAVE : BenchmarkAnimations.WALK);
+            // Spread the playheads so the controllers are not in lockstep
+            controller.seek(i % 40);
+        }
+        if (scheduler.size() != controllers) {
+            throw new IllegalStateException("Expected " + controllers + " scheduled controllers, got " + scheduler.size());
+        }
+    }
+    
+    @Benchmark
+    public int tick() {
+        scheduler.tick();
+        return scheduler.size();
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.yyyumeniku.reanim.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.yyyumeniku.reanim.animation.StaticPoseAnimation;
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * A held pose, with and without the tremble effect.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticPoseAnimationBenchmark {
+    
+    @Param({"0", "0.05"})
+    public float trembleIntensity;
+    
+    private StaticPoseAnimation animation;
+    private final PoseBuffer out = new PoseBuffer();
+    
+    @Setup
+    public void setup() {
+        animation = new StaticPoseAnimation(new ResourceLocation("reanim_bench", "static"), BenchmarkAnimations.RAISED, trembleIntensity);
+    }
+    
+    @Benchmark
+    public IPose getPoseAtProgress() {
+        return animation.getPoseAtProgress(0, 0.5f);
+    }
+    
+    @Benchmark
+    public PoseBuffer writePose() {
+        animation.writePose(0, 0.5f, out);
+        return out;
+    }
+}
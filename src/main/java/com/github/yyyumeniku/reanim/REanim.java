@@ -1,19 +1,40 @@
 package com.github.yyyumeniku.reanim;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.github.yyyumeniku.reanim.api.AnimationAPI;
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+import com.github.yyyumeniku.reanim.api.IAnimatedEntity;
+import com.github.yyyumeniku.reanim.api.IAnimationController;
 import com.github.yyyumeniku.reanim.capability.AnimationCapability;
 import com.github.yyyumeniku.reanim.capability.AnimationProvider;
 import com.github.yyyumeniku.reanim.capability.IAnimationCapability;
+import com.github.yyyumeniku.reanim.command.ReanimCommand;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+import com.github.yyyumeniku.reanim.format.ReanimLoader;
+import com.github.yyyumeniku.reanim.network.AnimationPalette;
+import com.github.yyyumeniku.reanim.network.AnimationSyncBatcher;
+import com.github.yyyumeniku.reanim.network.AnimationSyncMessage;
 import com.github.yyyumeniku.reanim.network.PacketHandler;
+import com.github.yyyumeniku.reanim.network.PlayRequestLimiter;
 
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.capabilities.CapabilityManager;
 import net.minecraftforge.event.AttachCapabilitiesEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent.StartTracking;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.event.FMLLoadCompleteEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.PlayerEvent;
 import net.minecraftforge.fml.common.gameevent.TickEvent;
 
 import org.apache.logging.log4j.LogManager;
@@ -41,26 +62,92 @@ public class REanim {
         // Register network
         PacketHandler.init();
         
+        // Register compiled animations shipped as .reanim files (decoded lazily on first use)
+        Path animationDir = event.getModConfigurationDirectory().toPath().resolve(Tags.MOD_ID).resolve("animations");
+        try {
+            int loaded = ReanimLoader.loadDirectory(animationDir);
+            if (loaded > 0) {
+                LOGGER.info("Registered {} compiled animations from {}", loaded, animationDir);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.error("Failed to load compiled animations from {}", animationDir, e);
+        }
+        
         // Register events
         MinecraftForge.EVENT_BUS.register(this);
     }
 
+    @Mod.EventHandler
+    public void loadComplete(FMLLoadCompleteEvent event) {
+        // All mods have registered their animations; assign int handles
+        AnimationRegistry.freeze();
+    }
+    
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event) {
+        AnimationPalette.resetServer();
+        AnimationSyncBatcher.reset();
+        event.registerServerCommand(new ReanimCommand());
+    }
+    
     @SubscribeEvent
     public void onAttachCapabilities(AttachCapabilitiesEvent<Entity> event) {
-        // Only attach to players for now (most common use case, lower overhead)
+        // Players get the capability so their animation persists; other mobs
+        // get a lazy controller from AnimationAPI on their first animation
         if (event.getObject() instanceof EntityPlayer) {
-            event.addCapability(ANIMATION_CAP_ID, new AnimationProvider());
+            EntityPlayer player = (EntityPlayer) event.getObject();
+            AnimationProvider provider = new AnimationProvider(player);
+            event.addCapability(ANIMATION_CAP_ID, provider);
+            // Cache the controller on the entity for fast lookups
+            ((IAnimatedEntity) player).reanim$setController(provider.getController());
         }
     }
     
     @SubscribeEvent
-    public void onPlayerTick(TickEvent.PlayerTickEvent event) {
-        if (event.phase != TickEvent.Phase.END) return;
-        
-        // Update animation controller each tick
-        IAnimationCapability cap = event.player.getCapability(AnimationProvider.ANIMATION_CAP, null);
-        if (cap != null) {
-            cap.tick();
+    public void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        // Send the animation index palette so sync packets can use indices
+        if (event.player instanceof EntityPlayerMP) {
+            EntityPlayerMP player = (EntityPlayerMP) event.player;
+            PacketHandler.INSTANCE.sendTo(AnimationPalette.createHandshake(), player);
+            sendStateTo(player, player);
+        }
+    }
+    
+    @SubscribeEvent
+    public void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
+        if (event.player instanceof EntityPlayerMP) {
+            PlayRequestLimiter.remove((EntityPlayerMP) event.player);
         }
     }
+    
+    @SubscribeEvent
+    public void onStartTracking(StartTracking event) {
+        // A player started seeing an entity; tell them what it is playing
+        if (event.getTarget() instanceof EntityLivingBase && event.getEntityPlayer() instanceof EntityPlayerMP) {
+            sendStateTo((EntityLivingBase) event.getTarget(), (EntityPlayerMP) event.getEntityPlayer());
+        }
+    }
+    
+    private static void sendStateTo(EntityLivingBase entity, EntityPlayerMP player) {
+        IAnimationController controller = AnimationAPI.getController(entity);
+        if (controller != null && controller.isPlaying()) {
+            PacketHandler.INSTANCE.sendTo(new AnimationSyncMessage(entity.getEntityId(), controller, entity.world.getTotalWorldTime()), player);
+        }
+    }
+    
+    @SubscribeEvent
+    public void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            // Tick every animating controller on the server in one pass
+            AnimationTickScheduler.SERVER.tick();
+            // Send this tick's state changes, one packet per observer
+            AnimationSyncBatcher.flush();
+        }
+    }
+    
+    @SubscribeEvent
+    public void onWorldUnload(WorldEvent.Unload event) {
+        AnimationTickScheduler scheduler = event.getWorld().isRemote ? AnimationTickScheduler.CLIENT : AnimationTickScheduler.SERVER;
+        scheduler.removeWorld(event.getWorld());
+    }
 }
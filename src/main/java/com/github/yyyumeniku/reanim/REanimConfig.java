@@ -0,0 +1,68 @@
+package com.github.yyyumeniku.reanim;
+
+import net.minecraftforge.common.config.Config;
+import net.minecraftforge.common.config.ConfigManager;
+import net.minecraftforge.fml.client.event.ConfigChangedEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * REanim configuration, stored in config/reanim.cfg.
+ */
+@Config(modid = Tags.MOD_ID)
+public final class REanimConfig {
+    
+    @Config.Comment({
+        "Ticks a mob's animation controller is kept after its last animation ends.",
+        "Mobs get a controller on their first animation and lose it again after this long idle.",
+        "Players always keep theirs."
+    })
+    @Config.RangeInt(min = 0)
+    public static int idleReleaseTicks = 200;
+    
+    @Config.Comment({
+        "Camera distances in blocks where animation detail drops, nearest first.",
+        "Past the n-th distance, poses update every 2^n frames, transitions snap and only body and arms are animated.",
+        "Leave empty to always use full detail."
+    })
+    @Config.RangeDouble(min = 0)
+    public static double[] lodBandDistances = {32, 64};
+    
+    @Config.Comment("Ticks a client's animation may drift from the server before it is corrected.")
+    @Config.RangeDouble(min = 0)
+    public static double driftThresholdTicks = 1.5;
+    
+    @Config.Comment("Ticks over which drift is smoothly corrected.")
+    @Config.RangeInt(min = 0)
+    public static int driftCorrectionTicks = 10;
+    
+    @Config.Comment("Drift in ticks above which the client jumps straight to the server's position.")
+    @Config.RangeDouble(min = 0)
+    public static double driftSnapTicks = 10;
+    
+    @Config.Comment("Animation play/stop requests a player may send per second, on average.")
+    @Config.RangeDouble(min = 0)
+    public static double playRequestsPerSecond = 4;
+    
+    @Config.Comment("Animation play/stop requests a player may send in a burst.")
+    @Config.RangeInt(min = 1)
+    public static int playRequestBurst = 8;
+    
+    @Config.Comment("Time every pose evaluation per animation for /reanim stats. Counters are collected regardless.")
+    public static boolean collectTimings = true;
+    
+    private REanimConfig() {}
+    
+    @Mod.EventBusSubscriber(modid = Tags.MOD_ID)
+    public static final class EventHandler {
+        
+        private EventHandler() {}
+        
+        @SubscribeEvent
+        public static void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent event) {
+            if (Tags.MOD_ID.equals(event.getModID())) {
+                ConfigManager.sync(Tags.MOD_ID, Config.Type.INSTANCE);
+            }
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.yyyumeniku.reanim.animation;
+
+import javax.annotation.Nullable;
+
+import com.github.yyyumeniku.reanim.api.Easing;
+import com.github.yyyumeniku.reanim.api.IAnimation;
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PlaybackContext;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Animation that adds motion on top of whatever pose is below it instead of
+ * replacing it: breathing, recoil, flinches.
+ *
+ * Built from any source animation and a reference pose. When registered, the source
+ * is sampled into a table of deltas ({@code source - reference}), so evaluating it is
+ * a table read and a lerp, and compositing it is a weighted add per channel.
+ * The poses it writes are marked additive for every part the source overrides.
+ *
+ * Usage:
+ * <pre>{@code
+ * // Recoil keyed as an absolute pose, played as a delta from its first frame
+ * AnimationRegistry.register(new AdditiveAnimation(new ResourceLocation("mymod", "recoil"), recoilKeyframes));
+ * AnimationAPI.playLayer(player, 200, PoseBuffer.MASK_ALL, new ResourceLocation("mymod", "recoil"), 0);
+ * }</pre>
+ *
+ * Played as the base animation it adds to the vanilla pose; played on a layer it adds
+ * to the layers below it.
+ */
+public class AdditiveAnimation implements IAnimation {
+    
+    private final ResourceLocation id;
+    private final IAnimation source;
+    @Nullable private final IPose reference;
+    private final int samplesPerTick;
+    
+    // Delta table: one row of CHANNEL_COUNT floats and one override mask per sample
+    private int intervals;
+    @Nullable private float[] deltas;
+    @Nullable private int[] masks;
+    
+    /**
+     * Create an additive animation relative to the source's own first frame.
+     * @param id Unique animation ID
+     * @param source Animation to sample; it does not have to be registered
+     */
+    public AdditiveAnimation(ResourceLocation id, IAnimation source) {
+        this(id, source, null, 4);
+    }
+    
+    /**
+     * Create an additive animation relative to a reference pose.
+     * @param id Unique animation ID
+     * @param source Animation to sample; it does not have to be registered
+     * @param reference Pose the deltas are measured from, or null for the source at progress 0
+     * @param samplesPerTick Samples per game tick over the source's duration (e.g. 4)
+     */
+    public AdditiveAnimation(ResourceLocation id, IAnimation source, @Nullable IPose reference, int samplesPerTick) {
+        this.id = id;
+        this.source = source;
+        this.reference = reference;
+        this.samplesPerTick = Math.max(1, samplesPerTick);
+    }
+    
+    @Override
+    public synchronized void bake() {
+        if (deltas != null) {
+            return;
+        }
+        source.bake();
+        
+        int duration = Math.max(1, source.getDurationTicks());
+        int count = duration * samplesPerTick;
+        // Looping animations wrap to sample 0; one-shots need the final delta at progress 1
+        int samples = source.isLooping() ? count : count + 1;
+        float[] table = new float[samples * PoseBuffer.CHANNEL_COUNT];
+        int[] sampleMasks = new int[samples];
+        
+        PlaybackContext context = new PlaybackContext();
+        PoseBuffer base = new PoseBuffer();
+        if (reference != null) {
+            base.set(reference);
+        } else {
+            source.writePose(0, 0, base, context);
+        }
+        float[] b = base.channels();
+        
+        PoseBuffer sample = new PoseBuffer();
+        for (int i = 0; i < samples; i++) {
+            sample.reset();
+            source.writePose((float) i / count, 0, sample, context);
+            float[] c = sample.channels();
+            int row = i * PoseBuffer.CHANNEL_COUNT;
+            for (int k = 0; k < PoseBuffer.CHANNEL_COUNT; k++) {
+                table[row + k] = c[k] - b[k];
+            }
+            sampleMasks[i] = sample.getOverrideMask();
+        }
+        
+        this.intervals = count;
+        this.masks = sampleMasks;
+        this.deltas = table;
+    }
+    
+    /** The animation the deltas were sampled from */
+    public IAnimation getSource() {
+        return source;
+    }
+    
+    @Override
+    public ResourceLocation getId() {
+        return id;
+    }
+    
+    @Override
+    public IPose getPoseAtProgress(float progress, float partialTicks) {
+        PoseBuffer out = new PoseBuffer();
+        writePose(progress, partialTicks, out);
+        return out;
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out) {
+        if (deltas == null) {
+            bake();
+        }
+        float[] table = deltas;
+        
+        float position = Math.max(0, Math.min(1, progress)) * intervals;
+        int index = (int) position;
+        float frac = position - index;
+        
+        int from;
+        int to;
+        if (source.isLooping()) {
+            from = index % intervals;
+            to = from + 1 == intervals ? 0 : from + 1;
+        } else {
+            from = Math.min(index, intervals);
+            to = Math.min(from + 1, intervals);
+        }
+        
+        int a = from * PoseBuffer.CHANNEL_COUNT;
+        int b = to * PoseBuffer.CHANNEL_COUNT;
+        float[] c = out.channels();
+        for (int i = 0; i < PoseBuffer.CHANNEL_COUNT; i++) {
+            float start = table[a + i];
+            c[i] = start + (table[b + i] - start) * frac;
+        }
+        int mask = masks[from];
+        out.setOverrideMask(mask).setAdditiveMask(mask).setWeight(1.0f);
+    }
+    
+    @Override
+    public int getDurationTicks() {
+        return source.getDurationTicks();
+    }
+    
+    @Override
+    public boolean isLooping() {
+        return source.isLooping();
+    }
+    
+    @Override
+    public float getSpeed() {
+        return source.getSpeed();
+    }
+    
+    @Override
+    public int getPriority() {
+        return source.getPriority();
+    }
+    
+    @Override
+    public int getTransitionInTicks() {
+        return source.getTransitionInTicks();
+    }
+    
+    @Override
+    public int getTransitionOutTicks() {
+        return source.getTransitionOutTicks();
+    }
+    
+    @Override
+    public Easing getTransitionInEasing() {
+        return source.getTransitionInEasing();
+    }
+    
+    @Override
+    public Easing getTransitionOutEasing() {
+        return source.getTransitionOutEasing();
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.yyyumeniku.reanim.animation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.yyyumeniku.reanim.api.IAnimation;
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PlaybackContext;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Blends several sample animations by one or two per-entity parameters, e.g.
+ * walk/jog/sprint by speed, or strafing by sideways and forward speed.
+ *
+ * Each sample sits at a position in parameter space. Weights use gradient band
+ * interpolation: a sample's weight falls off linearly towards each of its
+ * neighbours and is normalized over all samples, so a parameter on a sample
+ * plays exactly that sample and, in 1D, one between two samples blends just
+ * those two. Weights are kept in the controller's {@link PlaybackContext} and
+ * only recomputed when a parameter changes. Each part is normalized over the
+ * samples that override it, so a part keyed by only some samples plays at full
+ * strength rather than being blended towards zero.
+ *
+ * All samples are evaluated at the same normalized progress of one shared cycle
+ * of {@code durationTicks}, so foot contacts line up as long as the samples are
+ * authored with the same phase (e.g. right foot down at 0.0). Use the
+ * controller's speed to scale the cycle per entity.
+ *
+ * Parameters are set per entity with {@link com.github.yyyumeniku.reanim.api.IAnimationController#setParameter}.
+ *
+ * Example - Locomotion:
+ * <pre>{@code
+ * BlendSpaceAnimation locomotion = BlendSpaceAnimation.builder(new ResourceLocation("mymod", "locomotion"), 20)
+ *     .parameter("speed")
+ *     .sample(walk, 0.1f)
+ *     .sample(jog, 0.2f)
+ *     .sample(sprint, 0.3f)
+ *     .build();
+ * }</pre>
+ */
+public final class BlendSpaceAnimation implements IAnimation {
+    
+    private final ResourceLocation id;
+    private final int durationTicks;
+    private final boolean looping;
+    private final int transitionTicks;
+    
+    // Parameter IDs; parameterY is -1 for a 1D blend
+    private final int parameterX;
+    private final int parameterY;
+    private final IAnimation[] samples;
+    private final float[] positionsX;
+    private final float[] positionsY;
+    
+    // Context scratch layout: [0] X and [1] Y the weights were computed for, then one weight
+    // per sample, then the summed weight of every part during writePose
+    private static final int SLOT_X = 0;
+    private static final int SLOT_Y = 1;
+    private static final int SLOT_WEIGHTS = 2;
+    
+    private BlendSpaceAnimation(Builder builder) {
+        this.id = builder.id;
+        this.durationTicks = builder.durationTicks;
+        this.looping = builder.looping;
+        this.transitionTicks = builder.transitionTicks;
+        this.parameterX = PlaybackContext.parameterId(builder.parameterX);
+        this.parameterY = builder.parameterY != null ? PlaybackContext.parameterId(builder.parameterY) : -1;
+        
+        int count = builder.samples.size();
+        this.samples = builder.samples.toArray(new IAnimation[count]);
+        this.positionsX = new float[count];
+        this.positionsY = new float[count];
+        for (int i = 0; i < count; i++) {
+            positionsX[i] = builder.positionsX.get(i);
+            positionsY[i] = builder.positionsY.get(i);
+        }
+    }
+    
+    /**
+     * Start building a blend space.
+     * @param id Unique animation ID
+     * @param durationTicks Length of the shared cycle in ticks
+     */
+    public static Builder builder(ResourceLocation id, int durationTicks) {
+        return new Builder(id, durationTicks);
+    }
+    
+    @Override
+    public void bake() {
+        for (IAnimation sample : samples) {
+            sample.bake();
+        }
+    }
+    
+    @Override
+    public ResourceLocation getId() {
+        return id;
+    }
+    
+    @Override
+    public IPose getPoseAtProgress(float progress, float partialTicks) {
+        PoseBuffer out = new PoseBuffer();
+        writePose(progress, partialTicks, out, new PlaybackContext());
+        return out;
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out) {
+        writePose(progress, partialTicks, out, new PlaybackContext());
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out, PlaybackContext context) {
+        float[] state = weights(context);
+        int partTotals = SLOT_WEIGHTS + samples.length;
+        PoseBuffer scratch = context.scratchPose();
+        
+        int mask = 0;
+        int additive = 0;
+        for (int i = 0; i < samples.length; i++) {
+            float weight = state[SLOT_WEIGHTS + i];
+            if (weight <= 0) continue;
+            
+            // Same progress for every sample keeps them in phase
+            PoseBuffer sample = mask == 0 ? out : scratch;
+            samples[i].writePose(progress, partialTicks, sample, context.child(i));
+            
+            // Normalize per part: a part only blends between the samples that key it,
+            // so one not keyed by every sample is not pulled towards zero
+            int sampleMask = sample.getOverrideMask();
+            for (int bits = sampleMask; bits != 0; bits &= bits - 1) {
+                int part = Integer.numberOfTrailingZeros(bits);
+                int bit = 1 << part;
+                float total = (mask & bit) != 0 ? state[partTotals + part] : 0;
+                if (sample != out) {
+                    blendPart(out, sample, part, weight / (total + weight));
+                }
+                state[partTotals + part] = total + weight;
+                if ((mask & bit) == 0) {
+                    additive |= sample.getAdditiveMask() & bit;
+                }
+            }
+            mask |= sampleMask;
+        }
+        
+        if (mask == 0) {
+            out.reset().setOverrideMask(0);
+            return;
+        }
+        out.setOverrideMask(mask).setAdditiveMask(additive);
+    }
+    
+    /** Move one part of {@code out} towards the same part of {@code sample} */
+    private static void blendPart(PoseBuffer out, PoseBuffer sample, int part, float t) {
+        float[] a = out.channels();
+        float[] b = sample.channels();
+        int r = part * 3;
+        int o = PoseBuffer.OFFSET_BASE + r;
+        for (int k = 0; k < 3; k++) {
+            a[r + k] += (b[r + k] - a[r + k]) * t;
+            a[o + k] += (b[o + k] - a[o + k]) * t;
+        }
+        float weight = out.getWeight(part);
+        out.setWeight(part, weight + (sample.getWeight(part) - weight) * t);
+    }
+    
+    /**
+     * Get the sample weights for the context's parameters, recomputing them only if
+     * a parameter changed since the last call.
+     * @return The context's float scratch, weights from {@link #SLOT_WEIGHTS} followed by the part totals
+     */
+    private float[] weights(PlaybackContext context) {
+        float x = context.getParameter(parameterX);
+        float y = parameterY >= 0 ? context.getParameter(parameterY) : 0;
+        float[] state = context.floats(SLOT_WEIGHTS + samples.length + PoseBuffer.PART_COUNT);
+        // Cursor 0 marks the cached weights valid; it is cleared when playback restarts
+        int[] valid = context.cursors(1);
+        if (valid[0] != 0 && state[SLOT_X] == x && state[SLOT_Y] == y) {
+            return state;
+        }
+        
+        float total = 0;
+        for (int i = 0; i < samples.length; i++) {
+            float weight = bandWeight(i, x, y);
+            state[SLOT_WEIGHTS + i] = weight;
+            total += weight;
+        }
+        if (total > 0) {
+            for (int i = 0; i < samples.length; i++) {
+                state[SLOT_WEIGHTS + i] /= total;
+            }
+        }
+        state[SLOT_X] = x;
+        state[SLOT_Y] = y;
+        valid[0] = 1;
+        return state;
+    }
+    
+    /**
+     * Unnormalized weight of sample {@code i}: the smallest of its falloffs towards
+     * every other sample, each 1 at the sample and 0 at the neighbour.
+     */
+    private float bandWeight(int i, float x, float y) {
+        float px = x - positionsX[i];
+        float py = y - positionsY[i];
+        float weight = 1;
+        for (int j = 0; j < samples.length && weight > 0; j++) {
+            if (j == i) continue;
+            float dx = positionsX[j] - positionsX[i];
+            float dy = positionsY[j] - positionsY[i];
+            float lengthSq = dx * dx + dy * dy;
+            if (lengthSq == 0) continue;
+            float falloff = 1 - (px * dx + py * dy) / lengthSq;
+            weight = Math.min(weight, Math.max(0, falloff));
+        }
+        return weight;
+    }
+    
+    /** Number of sample animations */
+    public int getSampleCount() {
+        return samples.length;
+    }
+    
+    /** Whether the blend has a second parameter */
+    public boolean is2D() {
+        return parameterY >= 0;
+    }
+    
+    @Override
+    public int getDurationTicks() {
+        return durationTicks;
+    }
+    
+    @Override
+    public boolean isLooping() {
+        return looping;
+    }
+    
+    @Override
+    public int getTransitionInTicks() {
+        return transitionTicks;
+    }
+    
+    @Override
+    public int getTransitionOutTicks() {
+        return transitionTicks;
+    }
+    
+    /**
+     * Builder for {@link BlendSpaceAnimation}.
+     */
+    public static final class Builder {
+        private final ResourceLocation id;
+        private final int durationTicks;
+        private boolean looping = true;
+        private int transitionTicks = 5;
+        private String parameterX;
+        private String parameterY;
+        private final List<IAnimation> samples = new ArrayList<>();
+        private final List<Float> positionsX = new ArrayList<>();
+        private final List<Float> positionsY = new ArrayList<>();
+        
+        private Builder(ResourceLocation id, int durationTicks) {
+            this.id = id;
+            this.durationTicks = Math.max(1, durationTicks);
+        }
+        
+        /** Blend along one named parameter */
+        public Builder parameter(String name) {
+            this.parameterX = name;
+            this.parameterY = null;
+            return this;
+        }
+        
+        /** Blend over two named parameters */
+        public Builder parameters(String nameX, String nameY) {
+            this.parameterX = nameX;
+            this.parameterY = nameY;
+            return this;
+        }
+        
+        public Builder looping(boolean looping) {
+            this.looping = looping;
+            return this;
+        }
+        
+        public Builder transition(int ticks) {
+            this.transitionTicks = ticks;
+            return this;
+        }
+        
+        /** Add a sample of a 1D blend */
+        public Builder sample(IAnimation animation, float position) {
+            return sample(animation, position, 0);
+        }
+        
+        /** Add a sample of a 2D blend */
+        public Builder sample(IAnimation animation, float x, float y) {
+            samples.add(animation);
+            positionsX.add(x);
+            positionsY.add(y);
+            return this;
+        }
+        
+        public BlendSpaceAnimation build() {
+            if (parameterX == null) {
+                throw new IllegalStateException("Blend space " + id + " has no parameter");
+            }
+            if (samples.isEmpty()) {
+                throw new IllegalStateException("Blend space " + id + " has no samples");
+            }
+            return new BlendSpaceAnimation(this);
+        }
+    }
+}
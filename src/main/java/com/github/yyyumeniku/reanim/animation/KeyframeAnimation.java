@@ -0,0 +1,440 @@
+package com.github.yyyumeniku.reanim.animation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.yyyumeniku.reanim.api.Easing;
+import com.github.yyyumeniku.reanim.api.IAnimation;
+import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PlaybackContext;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Animation defined by keyframes on individual pose channels.
+ *
+ * Tracks are sparse: only channels that have keyframes are stored, so a long
+ * arm animation costs nothing for the legs. Parts without any track are not
+ * overridden and keep their vanilla pose. All tracks share two flat primitive
+ * arrays of key times (in ticks) and values, linearly interpolated. Looping
+ * animations interpolate from each track's last key back to its first key one
+ * cycle later, so there is no snap at the loop boundary.
+ *
+ * Lookup uses a per-controller cursor from {@link PlaybackContext}, so
+ * sequential playback finds the next keyframe in O(1) amortized time and only
+ * falls back to binary search on seeks and loop wrap-around.
+ *
+ * Example - Wave:
+ * <pre>{@code
+ * KeyframeAnimation wave = KeyframeAnimation.builder(new ResourceLocation("mymod", "wave"), 20)
+ *     .looping(true)
+ *     .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X, 0, -2.8f)
+ *     .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_Z, 0, 0.3f)
+ *     .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_Z, 10, -0.3f)
+ *     .rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_Z, 20, 0.3f)
+ *     .build();
+ * }</pre>
+ */
+public final class KeyframeAnimation implements IAnimation {
+    
+    private final ResourceLocation id;
+    private final int durationTicks;
+    private final boolean looping;
+    private final int priority;
+    private final float speed;
+    private final int transitionInTicks;
+    private final int transitionOutTicks;
+    private final Easing transitionInEasing;
+    private final Easing transitionOutEasing;
+    
+    // Track i covers keys [trackStarts[i], trackStarts[i + 1]) and drives channel trackChannels[i]
+    private final int[] trackChannels;
+    private final int[] trackStarts;
+    private final float[] keyTimes;
+    private final float[] keyValues;
+    private final int overrideMask;
+    
+    /**
+     * Create a keyframe animation from raw track arrays.
+     * Prefer {@link #builder(ResourceLocation, int)}; this is meant for loaders.
+     * @param trackChannels Channel index driven by each track
+     * @param trackStarts First key of each track, plus a final entry equal to the key count
+     * @param keyTimes Key times in ticks, ascending within each track
+     * @param keyValues Key values, parallel to {@code keyTimes}
+     */
+    public KeyframeAnimation(
+            ResourceLocation id,
+            int durationTicks,
+            boolean looping,
+            int priority,
+            float speed,
+            int transitionInTicks,
+            int transitionOutTicks,
+            int[] trackChannels,
+            int[] trackStarts,
+            float[] keyTimes,
+            float[] keyValues) {
+        this(id, durationTicks, looping, priority, speed, transitionInTicks, transitionOutTicks, Easing.LINEAR, Easing.LINEAR,
+            trackChannels, trackStarts, keyTimes, keyValues);
+    }
+    
+    /**
+     * Create a keyframe animation from raw track arrays, with transition curves.
+     * @see #KeyframeAnimation(ResourceLocation, int, boolean, int, float, int, int, int[], int[], float[], float[])
+     */
+    public KeyframeAnimation(
+            ResourceLocation id,
+            int durationTicks,
+            boolean looping,
+            int priority,
+            float speed,
+            int transitionInTicks,
+            int transitionOutTicks,
+            Easing transitionInEasing,
+            Easing transitionOutEasing,
+            int[] trackChannels,
+            int[] trackStarts,
+            float[] keyTimes,
+            float[] keyValues) {
+        if (trackStarts.length != trackChannels.length + 1 || keyTimes.length != keyValues.length
+                || trackStarts[0] != 0 || trackStarts[trackChannels.length] != keyTimes.length) {
+            throw new IllegalArgumentException("Malformed keyframe tracks for " + id);
+        }
+        for (int i = 0; i < trackChannels.length; i++) {
+            if (trackStarts[i] >= trackStarts[i + 1] || trackChannels[i] < 0 || trackChannels[i] >= PoseBuffer.CHANNEL_COUNT) {
+                throw new IllegalArgumentException("Malformed keyframe track " + i + " for " + id);
+            }
+        }
+        this.id = id;
+        this.durationTicks = Math.max(1, durationTicks);
+        this.looping = looping;
+        this.priority = priority;
+        this.speed = speed;
+        this.transitionInTicks = transitionInTicks;
+        this.transitionOutTicks = transitionOutTicks;
+        this.transitionInEasing = transitionInEasing;
+        this.transitionOutEasing = transitionOutEasing;
+        this.trackChannels = trackChannels;
+        this.trackStarts = trackStarts;
+        this.keyTimes = keyTimes;
+        this.keyValues = keyValues;
+        
+        int mask = 0;
+        for (int channel : trackChannels) {
+            mask |= 1 << ((channel % PoseBuffer.ROTATION_CHANNELS) / 3);
+        }
+        this.overrideMask = mask;
+    }
+    
+    public static Builder builder(ResourceLocation id, int durationTicks) {
+        return new Builder(id, durationTicks);
+    }
+    
+    @Override
+    public ResourceLocation getId() {
+        return id;
+    }
+    
+    @Override
+    public IPose getPoseAtProgress(float progress, float partialTicks) {
+        PoseBuffer out = new PoseBuffer();
+        writePose(progress, partialTicks, out);
+        return out;
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out) {
+        writePose(progress, out, null);
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out, PlaybackContext context) {
+        writePose(progress, out, context.cursors(trackChannels.length));
+    }
+    
+    private void writePose(float progress, PoseBuffer out, int[] cursors) {
+        out.reset();
+        out.setOverrideMask(overrideMask);
+        
+        float time = progress * durationTicks;
+        float[] c = out.channels();
+        for (int track = 0; track < trackChannels.length; track++) {
+            int start = trackStarts[track];
+            int end = trackStarts[track + 1];
+            
+            int key;
+            if (cursors != null) {
+                key = seek(start, end, cursors[track], time);
+                cursors[track] = key;
+            } else {
+                key = search(start, end, time);
+            }
+            c[trackChannels[track]] = sample(start, key, end, time);
+        }
+    }
+    
+    /**
+     * Find the last key at or before {@code time}, starting from a cursor hint.
+     * Sequential playback only ever moves the cursor forward by a key or two.
+     */
+    private int seek(int start, int end, int hint, float time) {
+        if (hint >= start && hint < end && keyTimes[hint] <= time) {
+            if (hint + 1 >= end || time < keyTimes[hint + 1]) {
+                return hint;
+            }
+            if (hint + 2 >= end || time < keyTimes[hint + 2]) {
+                return hint + 1;
+            }
+        }
+        return search(start, end, time);
+    }
+    
+    /** Binary search for the last key at or before {@code time}, clamped to the track */
+    private int search(int start, int end, float time) {
+        int low = start;
+        int high = end - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (keyTimes[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    private float sample(int start, int key, int end, float time) {
+        float keyTime = keyTimes[key];
+        if (time < keyTime) {
+            // Before the first key: a looping track comes from its last key one cycle earlier
+            return looping ? interpolate(end - 1, keyTimes[end - 1] - durationTicks, start, keyTime, time) : keyValues[key];
+        }
+        int next = key + 1;
+        if (next >= end) {
+            // After the last key: a looping track blends back to its first key one cycle later
+            return looping ? interpolate(key, keyTime, start, keyTimes[start] + durationTicks, time) : keyValues[key];
+        }
+        return interpolate(key, keyTime, next, keyTimes[next], time);
+    }
+    
+    private float interpolate(int from, float fromTime, int to, float toTime, float time) {
+        float span = toTime - fromTime;
+        float t = span > 0 ? (time - fromTime) / span : 1;
+        return keyValues[from] + (keyValues[to] - keyValues[from]) * Math.max(0, Math.min(1, t));
+    }
+    
+    @Override
+    public int getDurationTicks() {
+        return durationTicks;
+    }
+    
+    @Override
+    public boolean isLooping() {
+        return looping;
+    }
+    
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+    
+    @Override
+    public float getSpeed() {
+        return speed;
+    }
+    
+    @Override
+    public int getTransitionInTicks() {
+        return transitionInTicks;
+    }
+    
+    @Override
+    public int getTransitionOutTicks() {
+        return transitionOutTicks;
+    }
+    
+    @Override
+    public Easing getTransitionInEasing() {
+        return transitionInEasing;
+    }
+    
+    @Override
+    public Easing getTransitionOutEasing() {
+        return transitionOutEasing;
+    }
+    
+    /** Number of keyed channels */
+    public int getTrackCount() {
+        return trackChannels.length;
+    }
+    
+    /** Channel index driven by a track */
+    public int getTrackChannel(int track) {
+        return trackChannels[track];
+    }
+    
+    /** Number of keyframes in a track */
+    public int getTrackKeyCount(int track) {
+        return trackStarts[track + 1] - trackStarts[track];
+    }
+    
+    /** Total number of keyframes across all tracks */
+    public int getKeyCount() {
+        return keyTimes.length;
+    }
+    
+    /** Time in ticks of a keyframe; keys are numbered track by track */
+    public float getKeyTime(int key) {
+        return keyTimes[key];
+    }
+    
+    /** Value of a keyframe; keys are numbered track by track */
+    public float getKeyValue(int key) {
+        return keyValues[key];
+    }
+    
+    /**
+     * Fluent builder for keyframe animations.
+     * Keys may be added in any order; each track is sorted on build.
+     */
+    public static final class Builder {
+        
+        private final ResourceLocation id;
+        private final int durationTicks;
+        private boolean looping;
+        private int priority;
+        private float speed = 1.0f;
+        private int transitionInTicks = 5;
+        private int transitionOutTicks = 5;
+        private Easing transitionInEasing = Easing.LINEAR;
+        private Easing transitionOutEasing = Easing.LINEAR;
+        
+        @SuppressWarnings("unchecked")
+        private final List<float[]>[] keys = new List[PoseBuffer.CHANNEL_COUNT];
+        
+        private Builder(ResourceLocation id, int durationTicks) {
+            this.id = id;
+            this.durationTicks = durationTicks;
+        }
+        
+        public Builder looping(boolean looping) {
+            this.looping = looping;
+            return this;
+        }
+        
+        public Builder priority(int priority) {
+            this.priority = priority;
+            return this;
+        }
+        
+        public Builder speed(float speed) {
+            this.speed = speed;
+            return this;
+        }
+        
+        public Builder transitionIn(int ticks) {
+            this.transitionInTicks = ticks;
+            return this;
+        }
+        
+        public Builder transitionOut(int ticks) {
+            this.transitionOutTicks = ticks;
+            return this;
+        }
+        
+        public Builder transitionIn(int ticks, Easing easing) {
+            this.transitionInTicks = ticks;
+            this.transitionInEasing = easing;
+            return this;
+        }
+        
+        public Builder transitionOut(int ticks, Easing easing) {
+            this.transitionOutTicks = ticks;
+            this.transitionOutEasing = easing;
+            return this;
+        }
+        
+        /**
+         * Add a keyframe on a raw channel.
+         * @param channel Channel index (see {@link PoseBuffer})
+         * @param tick Time in ticks from the start of the animation
+         * @param value Channel value (radians for rotations)
+         */
+        public Builder key(int channel, float tick, float value) {
+            if (channel < 0 || channel >= PoseBuffer.CHANNEL_COUNT) {
+                throw new IllegalArgumentException("Invalid channel: " + channel);
+            }
+            if (keys[channel] == null) {
+                keys[channel] = new ArrayList<>();
+            }
+            keys[channel].add(new float[] {tick, value});
+            return this;
+        }
+        
+        public Builder rotation(int part, int axis, float tick, float radians) {
+            return key(PoseBuffer.rotation(part, axis), tick, radians);
+        }
+        
+        public Builder offset(int part, int axis, float tick, float value) {
+            return key(PoseBuffer.offset(part, axis), tick, value);
+        }
+        
+        /**
+         * Key every rotation of the parts this pose overrides.
+         */
+        public Builder pose(float tick, IPose pose) {
+            PoseBuffer buffer = new PoseBuffer(pose);
+            for (int part = 0; part < PoseBuffer.PART_COUNT; part++) {
+                if (buffer.overrides(part)) {
+                    for (int axis = 0; axis < 3; axis++) {
+                        int channel = PoseBuffer.rotation(part, axis);
+                        key(channel, tick, buffer.get(channel));
+                    }
+                }
+            }
+            return this;
+        }
+        
+        public KeyframeAnimation build() {
+            int trackCount = 0;
+            int keyCount = 0;
+            for (List<float[]> track : keys) {
+                if (track != null) {
+                    trackCount++;
+                    keyCount += track.size();
+                }
+            }
+            
+            int[] trackChannels = new int[trackCount];
+            int[] trackStarts = new int[trackCount + 1];
+            float[] times = new float[keyCount];
+            float[] values = new float[keyCount];
+            
+            int track = 0;
+            int key = 0;
+            for (int channel = 0; channel < keys.length; channel++) {
+                if (keys[channel] == null) continue;
+                
+                float[][] sorted = keys[channel].toArray(new float[0][]);
+                Arrays.sort(sorted, (a, b) -> Float.compare(a[0], b[0]));
+                
+                trackChannels[track] = channel;
+                trackStarts[track] = key;
+                for (float[] frame : sorted) {
+                    times[key] = frame[0];
+                    values[key] = frame[1];
+                    key++;
+                }
+                track++;
+            }
+            trackStarts[trackCount] = keyCount;
+            
+            return new KeyframeAnimation(
+                id, durationTicks, looping, priority, speed, transitionInTicks, transitionOutTicks,
+                transitionInEasing, transitionOutEasing, trackChannels, trackStarts, times, values);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package com.github.yyyumeniku.reanim.animation;
 
 import java.util.function.BiFunction;
 
+import javax.annotation.Nullable;
+
 import com.github.yyyumeniku.reanim.api.IAnimation;
 import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
 
 import net.minecraft.util.ResourceLocation;
 
@@ -32,16 +35,50 @@ import net.minecraft.util.ResourceLocation;
  *     }
  * );
  * }</pre>
+ * 
+ * For allocation-free evaluation, pass a {@link PoseWriter} that fills the
+ * controller's buffer directly:
+ * <pre>{@code
+ * new ProceduralAnimation(id, 20, true, (progress, partialTicks, out) -> {
+ *     float armSwing = MathHelper.sin(progress * MathHelper.PI * 2) * 0.9f;
+ *     out.reset()
+ *         .setRotation(PoseBuffer.PART_RIGHT_ARM, -2.2f + armSwing, -0.2f, 0.35f)
+ *         .setRotation(PoseBuffer.PART_LEFT_ARM, -2.2f - armSwing, 0.2f, -0.35f);
+ * });
+ * }</pre>
+ * 
+ * Animations that only depend on progress can be baked into a sample table
+ * when registered. Evaluation is then a table read plus a lerp instead of a
+ * function call:
+ * <pre>{@code
+ * AnimationRegistry.register(new ProceduralAnimation(id, 20, true, fn).baked(4)); // 4 samples per tick
+ * }</pre>
+ * Keep the live path for animations that use partialTicks or entity state.
  */
 public class ProceduralAnimation implements IAnimation {
     
+    /**
+     * Writes the pose for a given progress straight into a buffer.
+     */
+    @FunctionalInterface
+    public interface PoseWriter {
+        void write(float progress, float partialTicks, PoseBuffer out);
+    }
+    
     private final ResourceLocation id;
     private final int durationTicks;
     private final boolean looping;
     private final BiFunction<Float, Float, IPose> poseFunction;
+    private final PoseWriter poseWriter;
     private final int priority;
     private final float speed;
     
+    // Baked sample table: one row of CHANNEL_COUNT floats and one override mask per sample
+    private int bakeSamplesPerTick;
+    private int bakedIntervals;
+    @Nullable private float[] bakedChannels;
+    @Nullable private int[] bakedMasks;
+    
     /**
      * Create a procedural animation.
      * @param id Unique animation ID
@@ -73,14 +110,99 @@ public class ProceduralAnimation implements IAnimation {
             BiFunction<Float, Float, IPose> poseFunction,
             int priority,
             float speed) {
+        this(id, durationTicks, looping, poseFunction, null, priority, speed);
+    }
+    
+    /**
+     * Create a procedural animation that writes into a pose buffer.
+     * @param id Unique animation ID
+     * @param durationTicks Duration of one cycle in ticks (20 = 1 second)
+     * @param looping Whether the animation loops
+     * @param poseWriter Function that writes the pose for (progress, partialTicks)
+     */
+    public ProceduralAnimation(
+            ResourceLocation id,
+            int durationTicks,
+            boolean looping,
+            PoseWriter poseWriter) {
+        this(id, durationTicks, looping, poseWriter, 0, 1.0f);
+    }
+    
+    /**
+     * Create a procedural animation that writes into a pose buffer, with priority and speed.
+     * @param id Unique animation ID
+     * @param durationTicks Duration of one cycle in ticks
+     * @param looping Whether the animation loops
+     * @param poseWriter Function that writes the pose
+     * @param priority Animation priority (higher = takes precedence)
+     * @param speed Playback speed multiplier
+     */
+    public ProceduralAnimation(
+            ResourceLocation id,
+            int durationTicks,
+            boolean looping,
+            PoseWriter poseWriter,
+            int priority,
+            float speed) {
+        this(id, durationTicks, looping, null, poseWriter, priority, speed);
+    }
+    
+    private ProceduralAnimation(
+            ResourceLocation id,
+            int durationTicks,
+            boolean looping,
+            BiFunction<Float, Float, IPose> poseFunction,
+            PoseWriter poseWriter,
+            int priority,
+            float speed) {
         this.id = id;
         this.durationTicks = Math.max(1, durationTicks);
         this.looping = looping;
         this.poseFunction = poseFunction;
+        this.poseWriter = poseWriter;
         this.priority = priority;
         this.speed = speed;
     }
     
+    /**
+     * Opt in to baking this animation into a sample table when it is registered.
+     * @param samplesPerTick Samples per game tick over {@code durationTicks} (e.g. 4)
+     * @return this animation
+     */
+    public ProceduralAnimation baked(int samplesPerTick) {
+        this.bakeSamplesPerTick = Math.max(0, samplesPerTick);
+        return this;
+    }
+    
+    public boolean isBaked() {
+        return bakedChannels != null;
+    }
+    
+    @Override
+    public void bake() {
+        if (bakeSamplesPerTick <= 0) {
+            return;
+        }
+        
+        int intervals = durationTicks * bakeSamplesPerTick;
+        // Looping animations wrap to sample 0; one-shots need the final pose at progress 1
+        int samples = looping ? intervals : intervals + 1;
+        float[] table = new float[samples * PoseBuffer.CHANNEL_COUNT];
+        int[] masks = new int[samples];
+        
+        PoseBuffer sample = new PoseBuffer();
+        for (int i = 0; i < samples; i++) {
+            sample.reset();
+            evaluateLive((float) i / intervals, 0, sample);
+            System.arraycopy(sample.channels(), 0, table, i * PoseBuffer.CHANNEL_COUNT, PoseBuffer.CHANNEL_COUNT);
+            masks[i] = sample.getOverrideMask();
+        }
+        
+        this.bakedIntervals = intervals;
+        this.bakedMasks = masks;
+        this.bakedChannels = table;
+    }
+    
     @Override
     public ResourceLocation getId() {
         return id;
@@ -88,7 +210,64 @@ public class ProceduralAnimation implements IAnimation {
     
     @Override
     public IPose getPoseAtProgress(float progress, float partialTicks) {
-        return poseFunction.apply(progress, partialTicks);
+        if (bakedChannels != null) {
+            PoseBuffer out = new PoseBuffer();
+            writeBaked(progress, out);
+            return out;
+        }
+        if (poseFunction != null) {
+            return poseFunction.apply(progress, partialTicks);
+        }
+        PoseBuffer out = new PoseBuffer();
+        poseWriter.write(progress, partialTicks, out);
+        return out;
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out) {
+        if (bakedChannels != null) {
+            writeBaked(progress, out);
+        } else {
+            evaluateLive(progress, partialTicks, out);
+        }
+    }
+    
+    private void evaluateLive(float progress, float partialTicks, PoseBuffer out) {
+        if (poseWriter != null) {
+            // Writers only fill channels and the override mask
+            out.setAdditiveMask(0);
+            poseWriter.write(progress, partialTicks, out);
+        } else {
+            out.set(poseFunction.apply(progress, partialTicks));
+        }
+    }
+    
+    private void writeBaked(float progress, PoseBuffer out) {
+        float[] table = bakedChannels;
+        int intervals = bakedIntervals;
+        
+        float position = Math.max(0, Math.min(1, progress)) * intervals;
+        int index = (int) position;
+        float frac = position - index;
+        
+        int from;
+        int to;
+        if (looping) {
+            from = index % intervals;
+            to = from + 1 == intervals ? 0 : from + 1;
+        } else {
+            from = Math.min(index, intervals);
+            to = Math.min(from + 1, intervals);
+        }
+        
+        int a = from * PoseBuffer.CHANNEL_COUNT;
+        int b = to * PoseBuffer.CHANNEL_COUNT;
+        float[] c = out.channels();
+        for (int i = 0; i < PoseBuffer.CHANNEL_COUNT; i++) {
+            float start = table[a + i];
+            c[i] = start + (table[b + i] - start) * frac;
+        }
+        out.setOverrideMask(bakedMasks[from]).setAdditiveMask(0);
     }
     
     @Override
@@ -2,7 +2,7 @@ package com.github.yyyumeniku.reanim.animation;
 
 import com.github.yyyumeniku.reanim.api.IAnimation;
 import com.github.yyyumeniku.reanim.api.IPose;
-import com.github.yyyumeniku.reanim.api.PoseBuilder;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
 
 import net.minecraft.util.ResourceLocation;
 
@@ -14,6 +14,7 @@ public final class StaticPoseAnimation implements IAnimation {
     
     private final ResourceLocation id;
     private final IPose pose;
+    private final PoseBuffer baseBuffer;
     private final float trembleIntensity;
     private final int transitionTicks;
     
@@ -36,6 +37,7 @@ public final class StaticPoseAnimation implements IAnimation {
     public StaticPoseAnimation(ResourceLocation id, IPose pose, float trembleIntensity, int transitionTicks) {
         this.id = id;
         this.pose = pose;
+        this.baseBuffer = new PoseBuffer(pose);
         this.trembleIntensity = trembleIntensity;
         this.transitionTicks = transitionTicks;
     }
@@ -51,19 +53,28 @@ public final class StaticPoseAnimation implements IAnimation {
             return pose;
         }
         
+        PoseBuffer out = new PoseBuffer();
+        writePose(progress, partialTicks, out);
+        return out;
+    }
+    
+    @Override
+    public void writePose(float progress, float partialTicks, PoseBuffer out) {
+        out.set(baseBuffer);
+        if (trembleIntensity <= 0) {
+            return;
+        }
+        
         // Use pre-calculated offsets with time-based index
         long time = System.currentTimeMillis();
         int index = (int) ((time / 20) % TREMBLE_OFFSETS.length);
         float offset = TREMBLE_OFFSETS[index] * trembleIntensity;
         
-        return PoseBuilder.create()
-            .head(pose.getHeadRotateX() + offset, pose.getHeadRotateY(), pose.getHeadRotateZ())
-            .body(pose.getBodyRotateX() + offset * 0.3f, pose.getBodyRotateY(), pose.getBodyRotateZ())
-            .leftArm(pose.getLeftArmRotateX() + offset, pose.getLeftArmRotateY(), pose.getLeftArmRotateZ())
-            .rightArm(pose.getRightArmRotateX() - offset, pose.getRightArmRotateY(), pose.getRightArmRotateZ())
-            .leftLeg(pose.getLeftLegRotateX(), pose.getLeftLegRotateY(), pose.getLeftLegRotateZ())
-            .rightLeg(pose.getRightLegRotateX(), pose.getRightLegRotateY(), pose.getRightLegRotateZ())
-            .build();
+        float[] c = out.channels();
+        c[PoseBuffer.rotation(PoseBuffer.PART_HEAD, PoseBuffer.AXIS_X)] += offset;
+        c[PoseBuffer.rotation(PoseBuffer.PART_BODY, PoseBuffer.AXIS_X)] += offset * 0.3f;
+        c[PoseBuffer.rotation(PoseBuffer.PART_LEFT_ARM, PoseBuffer.AXIS_X)] += offset;
+        c[PoseBuffer.rotation(PoseBuffer.PART_RIGHT_ARM, PoseBuffer.AXIS_X)] -= offset;
     }
     
     @Override
@@ -2,8 +2,7 @@ package com.github.yyyumeniku.reanim.api;
 
 import javax.annotation.Nullable;
 
-import com.github.yyyumeniku.reanim.capability.AnimationProvider;
-import com.github.yyyumeniku.reanim.capability.IAnimationCapability;
+import com.github.yyyumeniku.reanim.core.AnimationController;
 
 import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.ResourceLocation;
@@ -25,6 +24,10 @@ import net.minecraft.util.ResourceLocation;
  * // Stop animation
  * AnimationAPI.stop(player);
  * }</pre>
+ * 
+ * Any living entity can be animated. Players carry a controller for their whole
+ * lifetime; other mobs get one on their first {@link #play} and drop it again
+ * after being idle for a while.
  */
 public final class AnimationAPI {
     
@@ -32,14 +35,29 @@ public final class AnimationAPI {
     
     /**
      * Get the animation controller for an entity.
+     * Reads the reference cached on the entity instead of going through the capability.
      * @param entity The entity
-     * @return The controller, or null if entity doesn't have animation capability
+     * @return The controller, or null if the entity has none (mobs that are not animating)
      */
     @Nullable
     public static IAnimationController getController(EntityLivingBase entity) {
         if (entity == null) return null;
-        IAnimationCapability cap = entity.getCapability(AnimationProvider.ANIMATION_CAP, null);
-        return cap != null ? cap.getController() : null;
+        return ((IAnimatedEntity) entity).reanim$getController();
+    }
+    
+    /**
+     * Get the animation controller for an entity, allocating one for mobs that have none.
+     * @param entity The entity
+     * @return The controller
+     */
+    public static IAnimationController getOrCreateController(EntityLivingBase entity) {
+        IAnimatedEntity animated = (IAnimatedEntity) entity;
+        IAnimationController controller = animated.reanim$getController();
+        if (controller == null) {
+            controller = AnimationController.createLazy(entity);
+            animated.reanim$setController(controller);
+        }
+        return controller;
     }
     
     /**
@@ -48,10 +66,8 @@ public final class AnimationAPI {
      * @param animationId The animation ID (must be registered)
      */
     public static void play(EntityLivingBase entity, ResourceLocation animationId) {
-        IAnimationController controller = getController(entity);
-        if (controller != null) {
-            controller.play(animationId);
-        }
+        if (entity == null || !AnimationRegistry.isRegistered(animationId)) return;
+        getOrCreateController(entity).play(animationId);
     }
     
     /**
@@ -61,10 +77,8 @@ public final class AnimationAPI {
      * @param transitionTicks Ticks to blend from current pose
      */
     public static void play(EntityLivingBase entity, ResourceLocation animationId, int transitionTicks) {
-        IAnimationController controller = getController(entity);
-        if (controller != null) {
-            controller.play(animationId, transitionTicks);
-        }
+        if (entity == null || !AnimationRegistry.isRegistered(animationId)) return;
+        getOrCreateController(entity).play(animationId, transitionTicks);
     }
     
     /**
@@ -90,6 +104,67 @@ public final class AnimationAPI {
         }
     }
     
+    /**
+     * Play an animation on a layer over the entity's current animation.
+     * Layers are not synced, so call this on every side that should see it.
+     * @param entity The entity to animate
+     * @param priority Layer priority; higher layers go on top, 0 is the animation from {@link #play}
+     * @param partMask Parts the layer may write, e.g. {@code PoseBuffer.MASK_HEAD | PoseBuffer.MASK_ARMS}
+     * @param animationId The animation ID
+     * @param transitionTicks Ticks to blend in
+     */
+    public static void playLayer(EntityLivingBase entity, int priority, int partMask, ResourceLocation animationId, int transitionTicks) {
+        if (entity == null || !AnimationRegistry.isRegistered(animationId)) return;
+        getOrCreateController(entity).playLayer(priority, partMask, animationId, transitionTicks);
+    }
+    
+    /**
+     * Stop the animation on a layer.
+     * @param entity The entity
+     * @param priority Layer priority
+     * @param transitionTicks Ticks to fade the layer out
+     */
+    public static void stopLayer(EntityLivingBase entity, int priority, int transitionTicks) {
+        IAnimationController controller = getController(entity);
+        if (controller != null) {
+            controller.stopLayer(priority, transitionTicks);
+        }
+    }
+    
+    /**
+     * Set a parameter of an entity, e.g. the speed driving a blend space.
+     * Parameters are not synced, so set them on every side that shows the animation.
+     * @param entity The entity
+     * @param parameter Parameter ID from {@link PlaybackContext#parameterId(String)}
+     * @param value The value
+     */
+    public static void setParameter(EntityLivingBase entity, int parameter, float value) {
+        IAnimationController controller = getController(entity);
+        if (controller != null) {
+            controller.setParameter(parameter, value);
+        }
+    }
+    
+    /**
+     * Let a registered state machine pick an entity's animation from its parameters.
+     * @param entity The entity to animate
+     * @param stateMachineId The state machine ID (must be registered), or null to stop running one
+     */
+    public static void setStateMachine(EntityLivingBase entity, @Nullable ResourceLocation stateMachineId) {
+        if (entity == null) return;
+        if (stateMachineId == null) {
+            IAnimationController controller = getController(entity);
+            if (controller != null) {
+                controller.setStateMachine(null);
+            }
+            return;
+        }
+        AnimationStateMachine machine = AnimationRegistry.getStateMachine(stateMachineId);
+        if (machine != null) {
+            getOrCreateController(entity).setStateMachine(machine);
+        }
+    }
+    
     /**
      * Check if an entity is playing any animation.
      * @param entity The entity
@@ -1,18 +1,25 @@
 package com.github.yyyumeniku.reanim.api;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import javax.annotation.Nullable;
 
 import com.github.yyyumeniku.reanim.REanim;
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
 
 import net.minecraft.util.ResourceLocation;
 
 /**
  * Global registry for animations.
  * Register your animations here during mod initialization.
- * 
+ *
  * Example:
  * <pre>{@code
  * AnimationRegistry.register(new ProceduralAnimation(
@@ -21,10 +28,26 @@ import net.minecraft.util.ResourceLocation;
  *     (progress, partial) -> { ... }
  * ));
  * }</pre>
+ *
+ * Animations can also be registered lazily with {@link #registerLazy}; they are
+ * created on the first {@link #get} (used for compiled .reanim files).
+ *
+ * Once loading is complete the registry is {@link #freeze() frozen}: every animation
+ * gets a dense int handle and an immutable array-backed snapshot is published.
+ * Hot paths can then carry the handle and use {@link #get(int)} (an array read)
+ * instead of hashing a ResourceLocation. Later changes replace the snapshot
+ * copy-on-write; handles are never reused.
  */
 public final class AnimationRegistry {
     
+    /** Handle returned for unknown animations, or before the registry is frozen */
+    public static final int NO_ID = -1;
+    
     private static final ConcurrentHashMap<ResourceLocation, IAnimation> REGISTRY = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ResourceLocation, Supplier<IAnimation>> PENDING = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ResourceLocation, AnimationStateMachine> STATE_MACHINES = new ConcurrentHashMap<>();
+    
+    @Nullable private static volatile Snapshot snapshot;
     
     private AnimationRegistry() {}
     
@@ -35,10 +58,12 @@ public final class AnimationRegistry {
      */
     public static void register(IAnimation animation) {
         ResourceLocation id = animation.getId();
-        if (REGISTRY.containsKey(id)) {
+        if (REGISTRY.containsKey(id) || PENDING.containsKey(id)) {
             throw new IllegalArgumentException("Animation already registered: " + id);
         }
+        animation.bake();
         REGISTRY.put(id, animation);
+        updateSnapshot(id, animation);
         REanim.LOGGER.debug("Registered animation: {}", id);
     }
     
@@ -47,10 +72,28 @@ public final class AnimationRegistry {
      * @param animation The animation to register
      */
     public static void registerOrReplace(IAnimation animation) {
+        animation.bake();
+        PENDING.remove(animation.getId());
         REGISTRY.put(animation.getId(), animation);
+        updateSnapshot(animation.getId(), animation);
         REanim.LOGGER.debug("Registered/replaced animation: {}", animation.getId());
     }
     
+    /**
+     * Register an animation that is only created on first use.
+     * The loader runs at most once; the result is baked and stored like a normal registration.
+     * @param id The animation ID
+     * @param loader Creates the animation, or returns null if it cannot be loaded
+     * @throws IllegalArgumentException if an animation with the same ID already exists
+     */
+    public static void registerLazy(ResourceLocation id, Supplier<IAnimation> loader) {
+        if (REGISTRY.containsKey(id) || PENDING.putIfAbsent(id, loader) != null) {
+            throw new IllegalArgumentException("Animation already registered: " + id);
+        }
+        updateSnapshot(id, null);
+        REanim.LOGGER.debug("Registered lazy animation: {}", id);
+    }
+    
     /**
      * Get an animation by ID.
      * @param id The animation ID
@@ -58,7 +101,117 @@ public final class AnimationRegistry {
      */
     @Nullable
     public static IAnimation get(ResourceLocation id) {
-        return REGISTRY.get(id);
+        IAnimation animation = REGISTRY.get(id);
+        if (animation == null && !PENDING.isEmpty() && PENDING.containsKey(id)) {
+            animation = resolve(id);
+        }
+        AnimationMetrics.registryLookup(animation != null);
+        return animation;
+    }
+    
+    /**
+     * Get an animation by its int handle.
+     * @param handle Handle from {@link #idOf(ResourceLocation)}
+     * @return The animation, or null if the handle is unknown or was unregistered
+     */
+    @Nullable
+    public static IAnimation get(int handle) {
+        Snapshot current = snapshot;
+        if (current == null || handle < 0 || handle >= current.animations.length) {
+            AnimationMetrics.registryLookup(false);
+            return null;
+        }
+        IAnimation animation = current.animations[handle];
+        ResourceLocation id = current.names[handle];
+        if (animation == null && id != null && PENDING.containsKey(id)) {
+            // Lazily registered: loading it publishes a new snapshot with the slot filled
+            animation = resolve(id);
+        }
+        AnimationMetrics.registryLookup(animation != null);
+        return animation;
+    }
+    
+    /**
+     * Get the int handle of an animation.
+     * @param id The animation ID
+     * @return The handle, or {@link #NO_ID} if unknown or the registry is not frozen yet
+     */
+    public static int idOf(ResourceLocation id) {
+        Snapshot current = snapshot;
+        if (current == null || id == null) {
+            return NO_ID;
+        }
+        Integer handle = current.handles.get(id);
+        return handle != null ? handle : NO_ID;
+    }
+    
+    /**
+     * Get the animation ID for an int handle.
+     * @return The ID, or null if the handle is unknown
+     */
+    @Nullable
+    public static ResourceLocation nameOf(int handle) {
+        Snapshot current = snapshot;
+        if (current == null || handle < 0 || handle >= current.names.length) {
+            return null;
+        }
+        return current.names[handle];
+    }
+    
+    /** Number of handles assigned so far; valid handles are below this */
+    public static int getHandleCount() {
+        Snapshot current = snapshot;
+        return current != null ? current.names.length : 0;
+    }
+    
+    /** Whether int handles have been assigned */
+    public static boolean isFrozen() {
+        return snapshot != null;
+    }
+    
+    /**
+     * Assign dense int handles to every registered animation and publish the snapshot.
+     * Called automatically when mod loading completes. Handles are assigned in ID order,
+     * so the same set of animations always gets the same handles.
+     */
+    public static synchronized void freeze() {
+        if (snapshot != null) {
+            return;
+        }
+        List<ResourceLocation> ids = new ArrayList<>(REGISTRY.keySet());
+        ids.addAll(PENDING.keySet());
+        ids.sort((a, b) -> a.toString().compareTo(b.toString()));
+        
+        ResourceLocation[] names = ids.toArray(new ResourceLocation[0]);
+        IAnimation[] animations = new IAnimation[names.length];
+        Map<ResourceLocation, Integer> handles = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            animations[i] = REGISTRY.get(names[i]);
+            handles.put(names[i], i);
+        }
+        snapshot = new Snapshot(names, animations, handles);
+        REanim.LOGGER.info("Animation registry frozen with {} animations", names.length);
+    }
+    
+    @Nullable
+    private static IAnimation resolve(ResourceLocation id) {
+        IAnimation animation = REGISTRY.computeIfAbsent(id, key -> {
+            Supplier<IAnimation> loader = PENDING.get(key);
+            if (loader == null) return null;
+            
+            IAnimation loaded = loader.get();
+            if (loaded == null) {
+                REanim.LOGGER.error("Failed to load animation: {}", key);
+                return null;
+            }
+            loaded.bake();
+            return loaded;
+        });
+        PENDING.remove(id);
+        if (animation != null) {
+            updateSnapshot(id, animation);
+        }
+        return animation;
     }
     
     /**
@@ -67,32 +220,130 @@ public final class AnimationRegistry {
      * @return true if registered
      */
     public static boolean isRegistered(ResourceLocation id) {
-        return REGISTRY.containsKey(id);
+        return REGISTRY.containsKey(id) || PENDING.containsKey(id);
     }
     
     /**
      * Get all registered animations.
+     * Forces any lazily registered animations to load.
      * @return Collection of all animations (unmodifiable view)
      */
     public static Collection<IAnimation> getAll() {
+        for (ResourceLocation id : PENDING.keySet()) {
+            resolve(id);
+        }
         return REGISTRY.values();
     }
     
+    /**
+     * Register a state machine, compiling it into its transition tables.
+     * The animations of its states may be registered later.
+     * @param machine The state machine
+     * @throws IllegalArgumentException if a state machine with the same ID already exists
+     */
+    public static void registerStateMachine(AnimationStateMachine machine) {
+        machine.compile();
+        if (STATE_MACHINES.putIfAbsent(machine.getId(), machine) != null) {
+            throw new IllegalArgumentException("State machine already registered: " + machine.getId());
+        }
+        REanim.LOGGER.debug("Registered state machine: {}", machine.getId());
+    }
+    
+    /**
+     * Get a state machine by ID.
+     * @param id The state machine ID
+     * @return The state machine, or null if not found
+     */
+    @Nullable
+    public static AnimationStateMachine getStateMachine(ResourceLocation id) {
+        return STATE_MACHINES.get(id);
+    }
+    
     /**
      * Remove an animation from the registry.
+     * Its int handle stays reserved and resolves to null.
      * @param id The animation ID to remove
      * @return true if the animation was removed
      */
     public static boolean unregister(ResourceLocation id) {
-        return REGISTRY.remove(id) != null;
+        boolean pending = PENDING.remove(id) != null;
+        boolean removed = REGISTRY.remove(id) != null || pending;
+        if (removed) {
+            removeFromSnapshot(id);
+        }
+        return removed;
     }
     
     /**
-     * Clear all registered animations.
+     * Clear all registered animations and int handles.
      * Use with caution - typically only for testing.
      */
     public static void clear() {
         REGISTRY.clear();
+        PENDING.clear();
+        STATE_MACHINES.clear();
+        synchronized (AnimationRegistry.class) {
+            snapshot = null;
+        }
         REanim.LOGGER.warn("Animation registry cleared!");
     }
+    
+    /**
+     * Copy-on-write update after the registry is frozen.
+     * New IDs are appended; replaced ones keep their handle.
+     */
+    private static synchronized void updateSnapshot(ResourceLocation id, @Nullable IAnimation animation) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        Integer handle = current.handles.get(id);
+        if (handle != null) {
+            IAnimation[] animations = current.animations.clone();
+            animations[handle] = animation;
+            snapshot = new Snapshot(current.names, animations, current.handles);
+            return;
+        }
+        
+        int next = current.names.length;
+        ResourceLocation[] names = Arrays.copyOf(current.names, next + 1);
+        IAnimation[] animations = Arrays.copyOf(current.animations, next + 1);
+        Map<ResourceLocation, Integer> handles = new HashMap<>(current.handles);
+        names[next] = id;
+        animations[next] = animation;
+        handles.put(id, next);
+        snapshot = new Snapshot(names, animations, handles);
+    }
+    
+    private static synchronized void removeFromSnapshot(ResourceLocation id) {
+        Snapshot current = snapshot;
+        if (current == null || !current.handles.containsKey(id)) {
+            return;
+        }
+        int handle = current.handles.get(id);
+        ResourceLocation[] names = current.names.clone();
+        IAnimation[] animations = current.animations.clone();
+        Map<ResourceLocation, Integer> handles = new HashMap<>(current.handles);
+        names[handle] = null;
+        animations[handle] = null;
+        handles.remove(id);
+        snapshot = new Snapshot(names, animations, handles);
+    }
+    
+    /**
+     * Immutable view of the registry by int handle.
+     * Slots of lazily registered animations are filled on first access, by publishing
+     * a new snapshot; a published one is never written to.
+     */
+    private static final class Snapshot {
+        final ResourceLocation[] names;
+        final IAnimation[] animations;
+        final Map<ResourceLocation, Integer> handles;
+        
+        Snapshot(ResourceLocation[] names, IAnimation[] animations, Map<ResourceLocation, Integer> handles) {
+            this.names = names;
+            this.animations = animations;
+            this.handles = handles;
+        }
+    }
 }
@@ -0,0 +1,371 @@
+package com.github.yyyumeniku.reanim.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * A state machine that picks an entity's animation from its parameters.
+ *
+ * Each state plays one animation. Transitions lead from a state (or from any
+ * state) to another when all of their conditions hold, optionally only once the
+ * state's animation has reached an exit time. Conditions compare a parameter of
+ * the entity (see {@link PlaybackContext#parameterId(String)}) with a constant,
+ * so a machine is pure data.
+ *
+ * When registered with {@link AnimationRegistry#registerStateMachine} the machine
+ * is compiled into int-indexed tables: states are numbered, every state's outgoing
+ * transitions (its own first, then the any-state ones) are one contiguous run, and
+ * conditions are flat parameter/operator/value arrays. A controller running the
+ * machine checks the current state's run once per tick.
+ *
+ * Example - Locomotion with a one-shot jump:
+ * <pre>{@code
+ * AnimationRegistry.registerStateMachine(AnimationStateMachine.builder(new ResourceLocation("mymod", "player"))
+ *     .state("idle", idleId)
+ *     .state("walk", walkId)
+ *     .state("jump", jumpId)
+ *     .transition("idle", "walk", 4).when("speed", Comparison.GREATER, 0.05f)
+ *     .transition("walk", "idle", 4).when("speed", Comparison.LESS_OR_EQUAL, 0.05f)
+ *     .transitionFromAny("jump", 2).when("jumping", Comparison.EQUAL, 1)
+ *     .transition("jump", "idle", 5).exitTime(1.0f)
+ *     .build());
+ *
+ * controller.setStateMachine(AnimationRegistry.getStateMachine(new ResourceLocation("mymod", "player")));
+ * }</pre>
+ * The first state is the one a controller starts in unless {@link Builder#defaultState} says otherwise.
+ */
+public final class AnimationStateMachine {
+    
+    /** Transition that has no exit time: it may fire at any point of the state's animation */
+    public static final float NO_EXIT_TIME = -1;
+    
+    /** How a condition compares its parameter with its value */
+    public enum Comparison {
+        GREATER, GREATER_OR_EQUAL, LESS, LESS_OR_EQUAL, EQUAL, NOT_EQUAL
+    }
+    
+    private static final Comparison[] COMPARISONS = Comparison.values();
+    
+    private final ResourceLocation id;
+    private final String[] stateNames;
+    private final ResourceLocation[] stateAnimations;
+    private final int defaultState;
+    private final List<TransitionDef> definitions;
+    
+    // Compiled tables; transitions of state s are [transitionOffsets[s], transitionOffsets[s + 1])
+    private int[] stateHandles;
+    private int[] transitionOffsets;
+    private int[] transitionTargets;
+    private int[] transitionTicks;
+    private float[] transitionExitTimes;
+    // Conditions of transition t are [conditionOffsets[t], conditionOffsets[t + 1])
+    private int[] conditionOffsets;
+    private int[] conditionParameters;
+    private int[] conditionComparisons;
+    private float[] conditionValues;
+    private volatile boolean compiled;
+    
+    private AnimationStateMachine(Builder builder) {
+        this.id = builder.id;
+        this.stateNames = builder.stateNames.toArray(new String[0]);
+        this.stateAnimations = builder.stateAnimations.toArray(new ResourceLocation[0]);
+        this.defaultState = builder.defaultState != null ? builder.stateIndex(builder.defaultState) : 0;
+        this.definitions = new ArrayList<>(builder.transitions);
+    }
+    
+    public static Builder builder(ResourceLocation id) {
+        return new Builder(id);
+    }
+    
+    /**
+     * Build the int-indexed tables. Called once by {@link AnimationRegistry#registerStateMachine}.
+     */
+    synchronized void compile() {
+        if (compiled) return;
+        
+        int stateCount = stateNames.length;
+        List<List<TransitionDef>> outgoing = new ArrayList<>(stateCount);
+        for (int s = 0; s < stateCount; s++) {
+            outgoing.add(new ArrayList<>());
+        }
+        for (TransitionDef def : definitions) {
+            if (def.from >= 0) {
+                outgoing.get(def.from).add(def);
+            }
+        }
+        // Any-state transitions go after each state's own, and never lead back into the same state
+        for (TransitionDef def : definitions) {
+            if (def.from >= 0) continue;
+            for (int s = 0; s < stateCount; s++) {
+                if (s != def.to) {
+                    outgoing.get(s).add(def);
+                }
+            }
+        }
+        
+        int transitionCount = 0;
+        int conditionCount = 0;
+        for (List<TransitionDef> list : outgoing) {
+            transitionCount += list.size();
+            for (TransitionDef def : list) {
+                conditionCount += def.conditions.size();
+            }
+        }
+        
+        int[] offsets = new int[stateCount + 1];
+        int[] targets = new int[transitionCount];
+        int[] ticks = new int[transitionCount];
+        float[] exitTimes = new float[transitionCount];
+        int[] condOffsets = new int[transitionCount + 1];
+        int[] condParameters = new int[conditionCount];
+        int[] condComparisons = new int[conditionCount];
+        float[] condValues = new float[conditionCount];
+        
+        int t = 0;
+        int c = 0;
+        for (int s = 0; s < stateCount; s++) {
+            offsets[s] = t;
+            for (TransitionDef def : outgoing.get(s)) {
+                targets[t] = def.to;
+                ticks[t] = def.ticks;
+                exitTimes[t] = def.exitTime;
+                condOffsets[t] = c;
+                for (ConditionDef condition : def.conditions) {
+                    condParameters[c] = PlaybackContext.parameterId(condition.parameter);
+                    condComparisons[c] = condition.comparison.ordinal();
+                    condValues[c] = condition.value;
+                    c++;
+                }
+                t++;
+            }
+        }
+        offsets[stateCount] = t;
+        condOffsets[transitionCount] = c;
+        
+        int[] handles = new int[stateCount];
+        Arrays.fill(handles, AnimationRegistry.NO_ID);
+        
+        this.stateHandles = handles;
+        this.transitionOffsets = offsets;
+        this.transitionTargets = targets;
+        this.transitionTicks = ticks;
+        this.transitionExitTimes = exitTimes;
+        this.conditionOffsets = condOffsets;
+        this.conditionParameters = condParameters;
+        this.conditionComparisons = condComparisons;
+        this.conditionValues = condValues;
+        this.compiled = true;
+    }
+    
+    public ResourceLocation getId() {
+        return id;
+    }
+    
+    public int getStateCount() {
+        return stateNames.length;
+    }
+    
+    public int getDefaultState() {
+        return defaultState;
+    }
+    
+    public String getStateName(int state) {
+        return stateNames[state];
+    }
+    
+    /** Index of a state by name, or -1 if there is none */
+    public int getStateIndex(String name) {
+        for (int s = 0; s < stateNames.length; s++) {
+            if (stateNames[s].equals(name)) return s;
+        }
+        return -1;
+    }
+    
+    public ResourceLocation getStateAnimation(int state) {
+        return stateAnimations[state];
+    }
+    
+    /**
+     * Registry handle of a state's animation, resolved on first use once the
+     * registry is frozen; {@link AnimationRegistry#NO_ID} before that.
+     */
+    public int getStateHandle(int state) {
+        if (!compiled) compile();
+        int handle = stateHandles[state];
+        if (handle == AnimationRegistry.NO_ID) {
+            handle = AnimationRegistry.idOf(stateAnimations[state]);
+            stateHandles[state] = handle;
+        }
+        return handle;
+    }
+    
+    /**
+     * Find the first transition out of a state that can fire.
+     * @param state Current state
+     * @param progress Progress of the state's animation (0.0 to 1.0); 1 once it has ended or completed a cycle
+     * @param context Playback context holding the entity's parameters
+     * @return Transition index, or -1 to stay
+     */
+    public int findTransition(int state, float progress, PlaybackContext context) {
+        if (!compiled) compile();
+        
+        int end = transitionOffsets[state + 1];
+        for (int t = transitionOffsets[state]; t < end; t++) {
+            float exitTime = transitionExitTimes[t];
+            if (exitTime >= 0 && progress < exitTime) continue;
+            if (conditionsHold(t, context)) return t;
+        }
+        return -1;
+    }
+    
+    public int getTransitionTarget(int transition) {
+        return transitionTargets[transition];
+    }
+    
+    public int getTransitionTicks(int transition) {
+        return transitionTicks[transition];
+    }
+    
+    private boolean conditionsHold(int transition, PlaybackContext context) {
+        int end = conditionOffsets[transition + 1];
+        for (int c = conditionOffsets[transition]; c < end; c++) {
+            float parameter = context.getParameter(conditionParameters[c]);
+            float value = conditionValues[c];
+            boolean holds;
+            switch (COMPARISONS[conditionComparisons[c]]) {
+                case GREATER: holds = parameter > value; break;
+                case GREATER_OR_EQUAL: holds = parameter >= value; break;
+                case LESS: holds = parameter < value; break;
+                case LESS_OR_EQUAL: holds = parameter <= value; break;
+                case EQUAL: holds = parameter == value; break;
+                default: holds = parameter != value; break;
+            }
+            if (!holds) return false;
+        }
+        return true;
+    }
+    
+    private static final class TransitionDef {
+        final int from;
+        final int to;
+        final int ticks;
+        float exitTime = NO_EXIT_TIME;
+        final List<ConditionDef> conditions = new ArrayList<>();
+        
+        TransitionDef(int from, int to, int ticks) {
+            this.from = from;
+            this.to = to;
+            this.ticks = ticks;
+        }
+    }
+    
+    private static final class ConditionDef {
+        final String parameter;
+        final Comparison comparison;
+        final float value;
+        
+        ConditionDef(String parameter, Comparison comparison, float value) {
+            this.parameter = parameter;
+            this.comparison = comparison;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * Builder for {@link AnimationStateMachine}.
+     * {@link #when} and {@link #exitTime} apply to the transition added last.
+     */
+    public static final class Builder {
+        private final ResourceLocation id;
+        private final List<String> stateNames = new ArrayList<>();
+        private final List<ResourceLocation> stateAnimations = new ArrayList<>();
+        private final Map<String, Integer> stateIndices = new HashMap<>();
+        private final List<TransitionDef> transitions = new ArrayList<>();
+        @Nullable private String defaultState;
+        @Nullable private TransitionDef last;
+        
+        private Builder(ResourceLocation id) {
+            this.id = id;
+        }
+        
+        /** Add a state playing an animation */
+        public Builder state(String name, ResourceLocation animationId) {
+            if (stateIndices.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate state " + name + " in " + id);
+            }
+            stateIndices.put(name, stateNames.size());
+            stateNames.add(name);
+            stateAnimations.add(animationId);
+            return this;
+        }
+        
+        /** State a controller enters first; defaults to the first state */
+        public Builder defaultState(String name) {
+            this.defaultState = name;
+            return this;
+        }
+        
+        /**
+         * Add a transition between two states.
+         * @param transitionTicks Ticks to blend into the target state's animation
+         */
+        public Builder transition(String from, String to, int transitionTicks) {
+            last = new TransitionDef(stateIndex(from), stateIndex(to), transitionTicks);
+            transitions.add(last);
+            return this;
+        }
+        
+        /** Add a transition from every other state */
+        public Builder transitionFromAny(String to, int transitionTicks) {
+            last = new TransitionDef(-1, stateIndex(to), transitionTicks);
+            transitions.add(last);
+            return this;
+        }
+        
+        /** Require a parameter comparison for the last transition */
+        public Builder when(String parameter, Comparison comparison, float value) {
+            lastTransition().conditions.add(new ConditionDef(parameter, comparison, value));
+            return this;
+        }
+        
+        /**
+         * Only let the last transition fire once the state's animation has reached
+         * this progress (0.0 to 1.0) of the cycle the state was entered in. 1.0 waits
+         * for a one-shot to finish, or for a looping animation to wrap around; once it
+         * has, the exit time stays reached for as long as the state lasts.
+         */
+        public Builder exitTime(float progress) {
+            lastTransition().exitTime = Math.max(0, Math.min(1, progress));
+            return this;
+        }
+        
+        public AnimationStateMachine build() {
+            if (stateNames.isEmpty()) {
+                throw new IllegalStateException("State machine " + id + " has no states");
+            }
+            return new AnimationStateMachine(this);
+        }
+        
+        private int stateIndex(String name) {
+            Integer index = stateIndices.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("Unknown state " + name + " in " + id);
+            }
+            return index;
+        }
+        
+        private TransitionDef lastTransition() {
+            if (last == null) {
+                throw new IllegalStateException("No transition to add to in " + id);
+            }
+            return last;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.yyyumeniku.reanim.api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.DoubleUnaryOperator;
+
+import javax.annotation.Nullable;
+
+/**
+ * An easing curve that maps linear progress (0.0 to 1.0) to eased progress.
+ *
+ * Every curve is sampled once into a lookup table when it is created, so
+ * {@link #apply(float)} is an array read and a lerp no matter how expensive the
+ * curve is. Back and elastic curves overshoot: their output leaves 0..1 in between,
+ * but they always start at 0 and end at 1.
+ *
+ * Usage:
+ * <pre>{@code
+ *   KeyframeAnimation.builder(id, 20)
+ *       .transitionIn(8, Easing.BACK_OUT)
+ *       .transitionOut(5, Easing.cubicBezier(0.25f, 0.1f, 0.25f, 1.0f))
+ *       ...
+ * }</pre>
+ */
+public final class Easing {
+    
+    private static final int SEGMENTS = 256;
+    private static final Map<String, Easing> BY_NAME = new LinkedHashMap<>();
+    
+    public static final Easing LINEAR = named("linear", t -> t);
+    
+    public static final Easing QUAD_IN = named("quad_in", t -> t * t);
+    public static final Easing QUAD_OUT = named("quad_out", t -> 1 - (1 - t) * (1 - t));
+    public static final Easing QUAD_IN_OUT = named("quad_in_out", t -> t < 0.5 ? 2 * t * t : 1 - 2 * (1 - t) * (1 - t));
+    
+    public static final Easing CUBIC_IN = named("cubic_in", t -> t * t * t);
+    public static final Easing CUBIC_OUT = named("cubic_out", t -> 1 - cube(1 - t));
+    public static final Easing CUBIC_IN_OUT = named("cubic_in_out", t -> t < 0.5 ? 4 * t * t * t : 1 - 4 * cube(1 - t));
+    
+    public static final Easing EXPO_IN = named("expo_in", t -> t <= 0 ? 0 : Math.pow(2, 10 * t - 10));
+    public static final Easing EXPO_OUT = named("expo_out", t -> t >= 1 ? 1 : 1 - Math.pow(2, -10 * t));
+    public static final Easing EXPO_IN_OUT = named("expo_in_out", t -> t <= 0 ? 0 : t >= 1 ? 1
+        : t < 0.5 ? Math.pow(2, 20 * t - 10) / 2 : (2 - Math.pow(2, -20 * t + 10)) / 2);
+    
+    public static final Easing BACK_IN = named("back_in", Easing::backIn);
+    public static final Easing BACK_OUT = named("back_out", t -> 1 - backIn(1 - t));
+    public static final Easing BACK_IN_OUT = named("back_in_out", t -> t < 0.5 ? backIn(2 * t) / 2 : 1 - backIn(2 - 2 * t) / 2);
+    
+    public static final Easing ELASTIC_IN = named("elastic_in", t -> 1 - elasticOut(1 - t));
+    public static final Easing ELASTIC_OUT = named("elastic_out", Easing::elasticOut);
+    public static final Easing ELASTIC_IN_OUT = named("elastic_in_out", t -> t < 0.5 ? (1 - elasticOut(1 - 2 * t)) / 2 : (1 + elasticOut(2 * t - 1)) / 2);
+    
+    /** CSS {@code ease}, {@code ease-in}, {@code ease-out} and {@code ease-in-out} */
+    public static final Easing EASE = register("ease", cubicBezier(0.25f, 0.1f, 0.25f, 1.0f));
+    public static final Easing EASE_IN = register("ease_in", cubicBezier(0.42f, 0, 1.0f, 1.0f));
+    public static final Easing EASE_OUT = register("ease_out", cubicBezier(0, 0, 0.58f, 1.0f));
+    public static final Easing EASE_IN_OUT = register("ease_in_out", cubicBezier(0.42f, 0, 0.58f, 1.0f));
+    
+    // Samples at t = i / SEGMENTS, plus one so the last segment has an end
+    private final float[] table;
+    
+    private Easing(DoubleUnaryOperator curve) {
+        table = new float[SEGMENTS + 1];
+        for (int i = 0; i <= SEGMENTS; i++) {
+            table[i] = (float) curve.applyAsDouble((double) i / SEGMENTS);
+        }
+        // Pin the ends so a finished transition lands exactly on its target
+        table[0] = 0;
+        table[SEGMENTS] = 1;
+    }
+    
+    /**
+     * Bake a custom curve.
+     * @param curve Function of progress 0..1; evaluated {@value #SEGMENTS} + 1 times, right away
+     */
+    public static Easing of(DoubleUnaryOperator curve) {
+        return new Easing(curve);
+    }
+    
+    /**
+     * Bake a CSS-style cubic Bezier curve from (0, 0) through control points
+     * (x1, y1) and (x2, y2) to (1, 1).
+     * @param x1 First control point X, clamped to 0..1 so the curve stays a function of time
+     * @param x2 Second control point X, clamped to 0..1
+     */
+    public static Easing cubicBezier(float x1, float y1, float x2, float y2) {
+        double cx1 = Math.max(0, Math.min(1, x1));
+        double cx2 = Math.max(0, Math.min(1, x2));
+        return new Easing(t -> bezier(solveBezierX(t, cx1, cx2), y1, y2));
+    }
+    
+    /**
+     * Register a curve under a name so data-driven animations can refer to it.
+     * @return The curve
+     */
+    public static synchronized Easing register(String name, Easing easing) {
+        BY_NAME.put(name, easing);
+        return easing;
+    }
+    
+    /** Get a curve by name, or null if there is none */
+    @Nullable
+    public static synchronized Easing byName(String name) {
+        return BY_NAME.get(name);
+    }
+    
+    /** Every named curve, in registration order */
+    public static synchronized Map<String, Easing> getNamed() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(BY_NAME));
+    }
+    
+    /**
+     * Ease a progress value.
+     * @param progress Linear progress; clamped to 0..1
+     * @return Eased progress
+     */
+    public float apply(float progress) {
+        if (progress <= 0) return 0;
+        if (progress >= 1) return 1;
+        
+        float scaled = progress * SEGMENTS;
+        int i = (int) scaled;
+        float a = table[i];
+        return a + (table[i + 1] - a) * (scaled - i);
+    }
+    
+    private static Easing named(String name, DoubleUnaryOperator curve) {
+        return register(name, new Easing(curve));
+    }
+    
+    private static double cube(double t) {
+        return t * t * t;
+    }
+    
+    private static double backIn(double t) {
+        double c1 = 1.70158;
+        return (c1 + 1) * t * t * t - c1 * t * t;
+    }
+    
+    private static double elasticOut(double t) {
+        if (t <= 0) return 0;
+        if (t >= 1) return 1;
+        return Math.pow(2, -10 * t) * Math.sin((t * 10 - 0.75) * (2 * Math.PI / 3)) + 1;
+    }
+    
+    /** One coordinate of a cubic Bezier with end points 0 and 1 */
+    private static double bezier(double s, double p1, double p2) {
+        double u = 1 - s;
+        return 3 * u * u * s * p1 + 3 * u * s * s * p2 + s * s * s;
+    }
+    
+    /**
+     * Find the curve parameter whose X is {@code x}, with Newton's method and a
+     * bisection fallback where the slope is too flat for Newton to converge.
+     */
+    private static double solveBezierX(double x, double x1, double x2) {
+        double s = x;
+        for (int i = 0; i < 8; i++) {
+            double error = bezier(s, x1, x2) - x;
+            if (Math.abs(error) < 1e-7) return s;
+            
+            double u = 1 - s;
+            double slope = 3 * u * u * x1 + 6 * u * s * (x2 - x1) + 3 * s * s * (1 - x2);
+            if (Math.abs(slope) < 1e-6) break;
+            s = Math.max(0, Math.min(1, s - error / slope));
+        }
+        
+        // X is monotonic in s for control points inside 0..1
+        double lo = 0;
+        double hi = 1;
+        s = x;
+        for (int i = 0; i < 40; i++) {
+            double value = bezier(s, x1, x2);
+            if (Math.abs(value - x) < 1e-7) break;
+            if (value < x) {
+                lo = s;
+            } else {
+                hi = s;
+            }
+            s = (lo + hi) / 2;
+        }
+        return s;
+    }
+}
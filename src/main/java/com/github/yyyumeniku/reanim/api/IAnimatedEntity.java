@@ -0,0 +1,20 @@
+package com.github.yyyumeniku.reanim.api;
+
+import javax.annotation.Nullable;
+
+/**
+ * Duck interface mixed into every EntityLivingBase.
+ * Holds a direct reference to the entity's animation controller so lookups
+ * skip the capability dispatcher. The animation capability stays the source
+ * of truth for persistence; this field is filled in when it is attached.
+ *
+ * Prefer {@link AnimationAPI#getController} over calling this directly.
+ */
+public interface IAnimatedEntity {
+    
+    /** The cached controller, or null if the entity has none */
+    @Nullable
+    IAnimationController reanim$getController();
+    
+    void reanim$setController(@Nullable IAnimationController controller);
+}
@@ -24,6 +24,36 @@ public interface IAnimation {
      */
     IPose getPoseAtProgress(float progress, float partialTicks);
     
+    /**
+     * Write the pose at a specific progress into a caller-owned buffer.
+     * Override this to avoid allocating a pose per evaluation.
+     * @param progress 0.0 to 1.0 for one cycle
+     * @param partialTicks Render partial ticks
+     * @param out Destination buffer
+     */
+    default void writePose(float progress, float partialTicks, PoseBuffer out) {
+        out.set(getPoseAtProgress(progress, partialTicks));
+    }
+    
+    /**
+     * Write the pose using per-controller playback state.
+     * Controllers call this variant; override it if the animation benefits from
+     * remembering where it was last frame (e.g. keyframe cursors).
+     * @param progress 0.0 to 1.0 for one cycle
+     * @param partialTicks Render partial ticks
+     * @param out Destination buffer
+     * @param context The calling controller's playback state
+     */
+    default void writePose(float progress, float partialTicks, PoseBuffer out, PlaybackContext context) {
+        writePose(progress, partialTicks, out);
+    }
+    
+    /**
+     * Called once by {@link AnimationRegistry} when this animation is registered.
+     * Use it to precompute lookup tables; the default does nothing.
+     */
+    default void bake() {}
+    
     /** Duration in game ticks (20 = 1 second) */
     int getDurationTicks();
     
@@ -42,6 +72,12 @@ public interface IAnimation {
     /** Transition time when blending FROM this animation to another (in ticks) */
     default int getTransitionOutTicks() { return 5; }
     
+    /** Curve of the blend into this animation from the previous pose */
+    default Easing getTransitionInEasing() { return Easing.LINEAR; }
+    
+    /** Curve of the blend out of this animation when it is stopped with a transition */
+    default Easing getTransitionOutEasing() { return Easing.LINEAR; }
+    
     /** 
      * Whether this animation should play (condition check).
      * Called every tick to determine if animation should continue.
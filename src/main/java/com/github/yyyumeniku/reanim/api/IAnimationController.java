@@ -15,6 +15,25 @@ public interface IAnimationController {
     /** Play an animation with custom transition time */
     void play(ResourceLocation animationId, int transitionTicks);
     
+    /**
+     * Play an animation by its registry int handle (see {@link AnimationRegistry#idOf}).
+     * Avoids hashing the ResourceLocation on every call.
+     */
+    default void play(int animationHandle) {
+        ResourceLocation id = AnimationRegistry.nameOf(animationHandle);
+        if (id != null) {
+            play(id);
+        }
+    }
+    
+    /** Play an animation by its registry int handle with custom transition time */
+    default void play(int animationHandle, int transitionTicks) {
+        ResourceLocation id = AnimationRegistry.nameOf(animationHandle);
+        if (id != null) {
+            play(id, transitionTicks);
+        }
+    }
+    
     /** Stop the current animation immediately */
     void stop();
     
@@ -31,6 +50,31 @@ public interface IAnimationController {
     @Nullable
     ResourceLocation getCurrentAnimationId();
     
+    /** Get the registry int handle of the current animation ({@link AnimationRegistry#NO_ID} if none) */
+    default int getCurrentAnimationHandle() {
+        return AnimationRegistry.idOf(getCurrentAnimationId());
+    }
+    
+    /**
+     * Jump to a point in the current animation.
+     * @param tick Playhead position in ticks
+     */
+    default void seek(float tick) {}
+    
+    /** Get the playhead position in ticks, including fractions */
+    default float getPlayhead() {
+        return getCurrentTick();
+    }
+    
+    /**
+     * Bring the playhead back to where the server expects it.
+     * Implementations may ignore small drift and correct larger drift gradually.
+     * @param expectedTick Playhead position in ticks the server expects right now
+     */
+    default void correctDrift(float expectedTick) {
+        seek(expectedTick);
+    }
+    
     /** Get playback progress (0.0 to 1.0) */
     float getProgress();
     
@@ -57,6 +101,90 @@ public interface IAnimationController {
     @Nullable
     IPose getCurrentPose(float partialTicks);
     
+    /**
+     * Get the current pose as a flat channel buffer.
+     * The buffer may be owned by the controller and overwritten by the next call;
+     * copy it if you need to keep it.
+     * @param partialTicks Render partial ticks for smooth interpolation
+     */
+    @Nullable
+    default PoseBuffer getCurrentPoseBuffer(float partialTicks) {
+        IPose pose = getCurrentPose(partialTicks);
+        if (pose == null || pose instanceof PoseBuffer) {
+            return (PoseBuffer) pose;
+        }
+        return new PoseBuffer(pose);
+    }
+    
+    /**
+     * Get the current pose, with the level of detail picked from the camera distance.
+     * Far entities may get a pose reused from an earlier frame.
+     * @param partialTicks Render partial ticks for smooth interpolation
+     * @param cameraDistanceSq Squared distance from the camera to the entity
+     */
+    @Nullable
+    default PoseBuffer getCurrentPoseBuffer(float partialTicks, double cameraDistanceSq) {
+        return getCurrentPoseBuffer(partialTicks);
+    }
+    
+    /**
+     * Play an animation on a layer composited over the current animation.
+     * Layers are ordered by priority: the animation started with {@link #play} is at 0,
+     * lower priorities go under it and higher ones on top. Layers are not synced.
+     * @param priority Layer priority, not 0
+     * @param partMask Parts the layer may write, see the {@code MASK_} constants of {@link PoseBuffer}
+     * @param animationId The animation ID
+     * @param transitionTicks Ticks to blend from the layer's previous animation
+     */
+    default void playLayer(int priority, int partMask, ResourceLocation animationId, int transitionTicks) {}
+    
+    /** Stop the animation of a layer, fading it out over the layers below */
+    default void stopLayer(int priority, int transitionTicks) {}
+    
+    /** Is an animation playing on the layer at a priority? */
+    default boolean isLayerPlaying(int priority) {
+        return false;
+    }
+    
+    /**
+     * Set a per-entity parameter read by parameter-driven animations such as blend spaces.
+     * Parameters are not synced; set them on every side that evaluates the animation.
+     * @param parameter Parameter ID from {@link PlaybackContext#parameterId(String)}
+     * @param value The value
+     */
+    default void setParameter(int parameter, float value) {}
+    
+    /** Get a per-entity parameter, or 0 if it was never set */
+    default float getParameter(int parameter) {
+        return 0;
+    }
+    
+    /**
+     * Let a state machine pick this entity's animation from its parameters.
+     * @param machine The state machine, or null to stop running one
+     */
+    default void setStateMachine(@Nullable AnimationStateMachine machine) {}
+    
+    /** The state machine being run, or null */
+    @Nullable
+    default AnimationStateMachine getStateMachine() {
+        return null;
+    }
+    
+    /** Name of the state machine's current state, or null without a state machine */
+    @Nullable
+    default String getCurrentStateName() {
+        return null;
+    }
+    
+    /**
+     * Detail band used for the last evaluated pose (0 = full detail).
+     * See {@link com.github.yyyumeniku.reanim.core.AnimationLod}.
+     */
+    default int getLodBand() {
+        return 0;
+    }
+    
     /** Called every game tick to update the animation */
     void tick();
 }
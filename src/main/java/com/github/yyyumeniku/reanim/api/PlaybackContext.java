@@ -0,0 +1,127 @@
+package com.github.yyyumeniku.reanim.api;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-controller scratch state handed to animations during evaluation.
+ * Animations are shared between all entities, so anything that depends on
+ * one entity's playback (e.g. keyframe cursors) lives here instead.
+ *
+ * Reset by the controller whenever a new animation starts, except for the
+ * parameters: those describe the entity (e.g. its speed) and are kept until
+ * they are set again. Parameters are addressed by an int ID from
+ * {@link #parameterId(String)}.
+ */
+public final class PlaybackContext {
+    
+    private static final int[] NO_CURSORS = new int[0];
+    private static final float[] NO_FLOATS = new float[0];
+    private static final PlaybackContext[] NO_CHILDREN = new PlaybackContext[0];
+    private static final Map<String, Integer> PARAMETER_IDS = new HashMap<>();
+    
+    private int[] cursors = NO_CURSORS;
+    private float[] floats = NO_FLOATS;
+    private float[] parameters = NO_FLOATS;
+    private PlaybackContext[] children = NO_CHILDREN;
+    private PoseBuffer scratchPose;
+    
+    /**
+     * Get the ID of a named parameter, assigning the next free one on first use.
+     * Look IDs up once and keep them; the lookup is synchronized.
+     */
+    public static synchronized int parameterId(String name) {
+        Integer id = PARAMETER_IDS.get(name);
+        if (id == null) {
+            id = PARAMETER_IDS.size();
+            PARAMETER_IDS.put(name, id);
+        }
+        return id;
+    }
+    
+    /**
+     * Get the cursor array, growing it to at least {@code count} entries.
+     * Cursor values are hints only; animations must range-check them.
+     * @param count Number of cursors needed
+     */
+    public int[] cursors(int count) {
+        if (cursors.length < count) {
+            cursors = Arrays.copyOf(cursors, count);
+        }
+        return cursors;
+    }
+    
+    /**
+     * Get a float scratch array, growing it to at least {@code count} entries.
+     * Zeroed on reset, like the cursors.
+     * @param count Number of floats needed
+     */
+    public float[] floats(int count) {
+        if (floats.length < count) {
+            floats = Arrays.copyOf(floats, count);
+        }
+        return floats;
+    }
+    
+    /**
+     * Get the context for a nested animation (e.g. one sample of a blend), so that
+     * animations evaluated inside another keep their own cursors.
+     * @param index Index of the nested animation
+     */
+    public PlaybackContext child(int index) {
+        if (children.length <= index) {
+            children = Arrays.copyOf(children, index + 1);
+        }
+        PlaybackContext child = children[index];
+        if (child == null) {
+            child = new PlaybackContext();
+            child.parameters = parameters;
+            children[index] = child;
+        }
+        return child;
+    }
+    
+    /** A pose buffer owned by this context, for animations that combine several poses */
+    public PoseBuffer scratchPose() {
+        if (scratchPose == null) {
+            scratchPose = new PoseBuffer();
+        }
+        return scratchPose;
+    }
+    
+    /** Get a parameter, or 0 if it was never set */
+    public float getParameter(int id) {
+        return id < parameters.length ? parameters[id] : 0;
+    }
+    
+    /** Set a parameter, see {@link #parameterId(String)} */
+    public void setParameter(int id, float value) {
+        if (parameters.length <= id) {
+            shareParameters(Arrays.copyOf(parameters, Math.max(id + 1, 4)));
+        }
+        parameters[id] = value;
+    }
+    
+    /** Take over every parameter of another context */
+    public void copyParameters(PlaybackContext from) {
+        shareParameters(from.parameters.clone());
+    }
+    
+    // Nested contexts read the same array
+    private void shareParameters(float[] values) {
+        parameters = values;
+        for (PlaybackContext child : children) {
+            if (child != null) child.shareParameters(values);
+        }
+    }
+    
+    /** Clear all per-animation state; parameters are kept */
+    public void reset() {
+        Arrays.fill(cursors, 0);
+        Arrays.fill(floats, 0);
+        for (PlaybackContext child : children) {
+            if (child != null) child.reset();
+        }
+    }
+}
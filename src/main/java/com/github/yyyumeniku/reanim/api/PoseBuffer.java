@@ -0,0 +1,428 @@
+package com.github.yyyumeniku.reanim.api;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, reusable pose backed by a single flat float array.
+ *
+ * Channels are addressed by index so hot paths (interpolation, pose evaluation,
+ * applying to the model) can loop over primitives instead of calling the
+ * 36 IPose getters. A buffer is itself an IPose, and any IPose can be copied
+ * into a buffer with {@link #set(IPose)}.
+ *
+ * Layout:
+ * <pre>
+ *   [0  .. 17]  rotations: part * 3 + axis
+ *   [18 .. 35]  offsets:   18 + part * 3 + axis
+ * </pre>
+ * Parts are ordered HEAD, RIGHT_ARM, LEFT_ARM, RIGHT_LEG, LEFT_LEG, BODY,
+ * axes are X, Y, Z. Override flags are stored as a bitmask with one bit per part.
+ *
+ * Each part also has a weight (1.0 by default): how strongly it replaces the
+ * vanilla pose. Weights below 1 come from fading transitions and from layers
+ * composited with {@link #overlay}.
+ *
+ * Parts in the additive mask hold deltas instead of absolute values: they are
+ * added to whatever is below them (the vanilla pose, or the layers under them)
+ * instead of replacing it.
+ *
+ * Buffers are not thread-safe; keep one per controller or per render thread.
+ */
+public final class PoseBuffer implements IPose {
+
+    // Body parts
+    public static final int PART_HEAD = 0;
+    public static final int PART_RIGHT_ARM = 1;
+    public static final int PART_LEFT_ARM = 2;
+    public static final int PART_RIGHT_LEG = 3;
+    public static final int PART_LEFT_LEG = 4;
+    public static final int PART_BODY = 5;
+    public static final int PART_COUNT = 6;
+
+    // Axes
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+    public static final int AXIS_Z = 2;
+
+    // Channel ranges
+    public static final int ROTATION_CHANNELS = PART_COUNT * 3;
+    public static final int OFFSET_BASE = ROTATION_CHANNELS;
+    public static final int CHANNEL_COUNT = ROTATION_CHANNELS * 2;
+
+    // Override masks
+    public static final int MASK_HEAD = 1 << PART_HEAD;
+    public static final int MASK_RIGHT_ARM = 1 << PART_RIGHT_ARM;
+    public static final int MASK_LEFT_ARM = 1 << PART_LEFT_ARM;
+    public static final int MASK_RIGHT_LEG = 1 << PART_RIGHT_LEG;
+    public static final int MASK_LEFT_LEG = 1 << PART_LEFT_LEG;
+    public static final int MASK_BODY = 1 << PART_BODY;
+    public static final int MASK_ARMS = MASK_RIGHT_ARM | MASK_LEFT_ARM;
+    public static final int MASK_LEGS = MASK_RIGHT_LEG | MASK_LEFT_LEG;
+    public static final int MASK_ALL = (1 << PART_COUNT) - 1;
+
+    // Below this part weight lerp keeps a mixed additive part additive rather than folding the delta in
+    private static final float MIN_BASE_WEIGHT = 1.0e-3f;
+
+    private final float[] channels = new float[CHANNEL_COUNT];
+    private final float[] weights = new float[PART_COUNT];
+    private int overrideMask = MASK_ALL;
+    private int additiveMask;
+
+    public PoseBuffer() {
+        Arrays.fill(weights, 1.0f);
+    }
+
+    public PoseBuffer(IPose pose) {
+        this();
+        set(pose);
+    }
+
+    /** Channel index of a rotation */
+    public static int rotation(int part, int axis) {
+        return part * 3 + axis;
+    }
+
+    /** Channel index of an offset */
+    public static int offset(int part, int axis) {
+        return OFFSET_BASE + part * 3 + axis;
+    }
+
+    /**
+     * Direct access to the backing array, for tight loops.
+     * Writes go straight into this buffer.
+     */
+    public float[] channels() {
+        return channels;
+    }
+
+    public float get(int channel) {
+        return channels[channel];
+    }
+
+    public PoseBuffer set(int channel, float value) {
+        channels[channel] = value;
+        return this;
+    }
+
+    public PoseBuffer setRotation(int part, float x, float y, float z) {
+        int i = part * 3;
+        channels[i] = x;
+        channels[i + 1] = y;
+        channels[i + 2] = z;
+        return this;
+    }
+
+    public PoseBuffer setOffset(int part, float x, float y, float z) {
+        int i = OFFSET_BASE + part * 3;
+        channels[i] = x;
+        channels[i + 1] = y;
+        channels[i + 2] = z;
+        return this;
+    }
+
+    public int getOverrideMask() {
+        return overrideMask;
+    }
+
+    public PoseBuffer setOverrideMask(int mask) {
+        this.overrideMask = mask & MASK_ALL;
+        return this;
+    }
+
+    public boolean overrides(int part) {
+        return (overrideMask & (1 << part)) != 0;
+    }
+
+    public int getAdditiveMask() {
+        return additiveMask;
+    }
+
+    /**
+     * Mark parts as holding deltas to add to the pose below instead of absolute values.
+     * Only parts that are also in the override mask are applied.
+     */
+    public PoseBuffer setAdditiveMask(int mask) {
+        this.additiveMask = mask & MASK_ALL;
+        return this;
+    }
+
+    public boolean isAdditive(int part) {
+        return (additiveMask & (1 << part)) != 0;
+    }
+
+    /** How strongly a part replaces the vanilla pose (0.0 to 1.0) */
+    public float getWeight(int part) {
+        return weights[part];
+    }
+
+    public PoseBuffer setWeight(int part, float weight) {
+        weights[part] = weight;
+        return this;
+    }
+
+    /** Set the weight of every part */
+    public PoseBuffer setWeight(float weight) {
+        Arrays.fill(weights, weight);
+        return this;
+    }
+
+    /** Zero every channel, override all parts at full weight */
+    public PoseBuffer reset() {
+        Arrays.fill(channels, 0);
+        Arrays.fill(weights, 1.0f);
+        overrideMask = MASK_ALL;
+        additiveMask = 0;
+        return this;
+    }
+
+    /** Copy another buffer into this one */
+    public PoseBuffer set(PoseBuffer other) {
+        System.arraycopy(other.channels, 0, channels, 0, CHANNEL_COUNT);
+        System.arraycopy(other.weights, 0, weights, 0, PART_COUNT);
+        overrideMask = other.overrideMask;
+        additiveMask = other.additiveMask;
+        return this;
+    }
+
+    /** Copy any pose into this buffer */
+    public PoseBuffer set(IPose pose) {
+        if (pose instanceof PoseBuffer) {
+            return set((PoseBuffer) pose);
+        }
+
+        float[] c = channels;
+        c[0] = pose.getHeadRotateX();
+        c[1] = pose.getHeadRotateY();
+        c[2] = pose.getHeadRotateZ();
+        c[3] = pose.getRightArmRotateX();
+        c[4] = pose.getRightArmRotateY();
+        c[5] = pose.getRightArmRotateZ();
+        c[6] = pose.getLeftArmRotateX();
+        c[7] = pose.getLeftArmRotateY();
+        c[8] = pose.getLeftArmRotateZ();
+        c[9] = pose.getRightLegRotateX();
+        c[10] = pose.getRightLegRotateY();
+        c[11] = pose.getRightLegRotateZ();
+        c[12] = pose.getLeftLegRotateX();
+        c[13] = pose.getLeftLegRotateY();
+        c[14] = pose.getLeftLegRotateZ();
+        c[15] = pose.getBodyRotateX();
+        c[16] = pose.getBodyRotateY();
+        c[17] = pose.getBodyRotateZ();
+
+        c[18] = pose.getHeadOffsetX();
+        c[19] = pose.getHeadOffsetY();
+        c[20] = pose.getHeadOffsetZ();
+        c[21] = pose.getRightArmOffsetX();
+        c[22] = pose.getRightArmOffsetY();
+        c[23] = pose.getRightArmOffsetZ();
+        c[24] = pose.getLeftArmOffsetX();
+        c[25] = pose.getLeftArmOffsetY();
+        c[26] = pose.getLeftArmOffsetZ();
+        c[27] = pose.getRightLegOffsetX();
+        c[28] = pose.getRightLegOffsetY();
+        c[29] = pose.getRightLegOffsetZ();
+        c[30] = pose.getLeftLegOffsetX();
+        c[31] = pose.getLeftLegOffsetY();
+        c[32] = pose.getLeftLegOffsetZ();
+        c[33] = pose.getBodyOffsetX();
+        c[34] = pose.getBodyOffsetY();
+        c[35] = pose.getBodyOffsetZ();
+
+        Arrays.fill(weights, 1.0f);
+        overrideMask = overrideMaskOf(pose);
+        additiveMask = 0;
+        return this;
+    }
+
+    /** Collect the override flags of any pose into a bitmask */
+    public static int overrideMaskOf(IPose pose) {
+        if (pose instanceof PoseBuffer) {
+            return ((PoseBuffer) pose).overrideMask;
+        }
+        int mask = 0;
+        if (pose.overridesHead()) mask |= MASK_HEAD;
+        if (pose.overridesRightArm()) mask |= MASK_RIGHT_ARM;
+        if (pose.overridesLeftArm()) mask |= MASK_LEFT_ARM;
+        if (pose.overridesRightLeg()) mask |= MASK_RIGHT_LEG;
+        if (pose.overridesLeftLeg()) mask |= MASK_LEFT_LEG;
+        if (pose.overridesBody()) mask |= MASK_BODY;
+        return mask;
+    }
+
+    /**
+     * Linearly interpolate every channel (and part weight) between two buffers into this one.
+     * Override and additive flags are taken from {@code to}. Safe when this buffer is {@code from} or {@code to}.
+     *
+     * A part that is additive on one side only is not lerped as if the delta were an
+     * absolute angle. Both sides are blended the way they are applied, over the vanilla
+     * pose: the absolute side fades through the part weight and the delta is added with
+     * its share, so leaving or entering an additive animation is continuous at both ends
+     * of the transition. While the absolute side's weight is still near 0 (or it does
+     * not override the part) the part stays additive.
+     */
+    public PoseBuffer lerp(PoseBuffer from, PoseBuffer to, float progress) {
+        float[] a = from.channels;
+        float[] b = to.channels;
+        float[] c = channels;
+        int overrides = to.overrideMask;
+        int additive = to.additiveMask;
+        int mixed = (from.additiveMask ^ to.additiveMask) & (from.overrideMask | to.overrideMask);
+        for (int i = 0; i < CHANNEL_COUNT; i++) {
+            int part = (i < OFFSET_BASE ? i : i - OFFSET_BASE) / 3;
+            if ((mixed & (1 << part)) != 0) continue;
+            c[i] = a[i] + (b[i] - a[i]) * progress;
+        }
+        for (int part = 0; part < PART_COUNT; part++) {
+            if ((mixed & (1 << part)) != 0) continue;
+            weights[part] = from.weights[part] + (to.weights[part] - from.weights[part]) * progress;
+        }
+        for (int bits = mixed; bits != 0; bits &= bits - 1) {
+            int part = Integer.numberOfTrailingZeros(bits);
+            int bit = 1 << part;
+            boolean fromAdditive = (from.additiveMask & bit) != 0;
+            PoseBuffer base = fromAdditive ? to : from;
+            PoseBuffer delta = fromAdditive ? from : to;
+            // Applied: vanilla + (base - vanilla) * baseWeight + delta * deltaWeight
+            float baseWeight = (base.overrideMask & bit) != 0
+                ? (fromAdditive ? progress : 1.0f - progress) * base.weights[part] : 0;
+            float deltaWeight = (fromAdditive ? 1.0f - progress : progress) * delta.weights[part];
+            int r = part * 3;
+            int o = OFFSET_BASE + r;
+            if (baseWeight < MIN_BASE_WEIGHT) {
+                // Too little of the absolute pose to carry the delta; add it on its own
+                for (int k = 0; k < 3; k++) {
+                    c[r + k] = delta.channels[r + k];
+                    c[o + k] = delta.channels[o + k];
+                }
+                weights[part] = deltaWeight;
+                additive |= bit;
+            } else {
+                // Fold the delta into the absolute pose, so that blending it in at baseWeight adds deltaWeight of it
+                float scale = deltaWeight / baseWeight;
+                for (int k = 0; k < 3; k++) {
+                    float deltaRotation = delta.channels[r + k];
+                    float deltaOffset = delta.channels[o + k];
+                    c[r + k] = base.channels[r + k] + deltaRotation * scale;
+                    c[o + k] = base.channels[o + k] + deltaOffset * scale;
+                }
+                weights[part] = baseWeight;
+                additive &= ~bit;
+            }
+            overrides |= bit;
+        }
+        overrideMask = overrides;
+        additiveMask = additive;
+        return this;
+    }
+
+    /**
+     * Composite a layer over this buffer. Only parts in both {@code partMask} and the
+     * layer's override mask are touched; every other part keeps its channels and weight.
+     *
+     * Both buffers blend over the vanilla pose, so the result is what applying this
+     * buffer and then the layer would give: a part at weight 1 in the layer replaces
+     * this buffer's part, a lighter one mixes with it, and a part this buffer does not
+     * override is taken from the layer as is.
+     *
+     * Additive parts of the layer are scaled by the weight and added to this buffer's
+     * part; if this buffer does not override the part, it becomes additive too.
+     * A replacing part over an additive one hides the delta.
+     * @param layer Pose to put on top; may not be this buffer
+     * @param partMask Parts the layer may write, see the {@code MASK_} constants
+     * @param weight Opacity of the whole layer, multiplied with its part weights
+     */
+    public PoseBuffer overlay(PoseBuffer layer, int partMask, float weight) {
+        float[] a = channels;
+        float[] b = layer.channels;
+        for (int bits = partMask & layer.overrideMask; bits != 0; bits &= bits - 1) {
+            int part = Integer.numberOfTrailingZeros(bits);
+            int bit = 1 << part;
+            float w = weight * layer.weights[part];
+            if (w <= 0) continue;
+
+            int r = part * 3;
+            int o = OFFSET_BASE + r;
+            if ((layer.additiveMask & bit) != 0) {
+                if ((overrideMask & bit) == 0) {
+                    // Nothing below but vanilla: carry the scaled delta
+                    for (int k = 0; k < 3; k++) {
+                        a[r + k] = 0;
+                        a[o + k] = 0;
+                    }
+                    weights[part] = 1.0f;
+                    additiveMask |= bit;
+                    overrideMask |= bit;
+                }
+                for (int k = 0; k < 3; k++) {
+                    a[r + k] += b[r + k] * w;
+                    a[o + k] += b[o + k] * w;
+                }
+                continue;
+            }
+
+            // Combined weight is 1 - (1 - below)(1 - w); the layer's share of it is w / combined
+            float below = (overrideMask & ~additiveMask & bit) != 0 ? weights[part] : 0;
+            float combined = below + w - below * w;
+            float t = w / combined;
+            for (int k = 0; k < 3; k++) {
+                a[r + k] += (b[r + k] - a[r + k]) * t;
+                a[o + k] += (b[o + k] - a[o + k]) * t;
+            }
+            weights[part] = combined;
+            overrideMask |= bit;
+            additiveMask &= ~bit;
+        }
+        return this;
+    }
+
+    /** Immutable-by-convention copy of this buffer */
+    public PoseBuffer copy() {
+        return new PoseBuffer().set(this);
+    }
+
+    @Override public float getHeadRotateX() { return channels[0]; }
+    @Override public float getHeadRotateY() { return channels[1]; }
+    @Override public float getHeadRotateZ() { return channels[2]; }
+    @Override public float getRightArmRotateX() { return channels[3]; }
+    @Override public float getRightArmRotateY() { return channels[4]; }
+    @Override public float getRightArmRotateZ() { return channels[5]; }
+    @Override public float getLeftArmRotateX() { return channels[6]; }
+    @Override public float getLeftArmRotateY() { return channels[7]; }
+    @Override public float getLeftArmRotateZ() { return channels[8]; }
+    @Override public float getRightLegRotateX() { return channels[9]; }
+    @Override public float getRightLegRotateY() { return channels[10]; }
+    @Override public float getRightLegRotateZ() { return channels[11]; }
+    @Override public float getLeftLegRotateX() { return channels[12]; }
+    @Override public float getLeftLegRotateY() { return channels[13]; }
+    @Override public float getLeftLegRotateZ() { return channels[14]; }
+    @Override public float getBodyRotateX() { return channels[15]; }
+    @Override public float getBodyRotateY() { return channels[16]; }
+    @Override public float getBodyRotateZ() { return channels[17]; }
+
+    @Override public boolean overridesHead() { return (overrideMask & MASK_HEAD) != 0; }
+    @Override public boolean overridesRightArm() { return (overrideMask & MASK_RIGHT_ARM) != 0; }
+    @Override public boolean overridesLeftArm() { return (overrideMask & MASK_LEFT_ARM) != 0; }
+    @Override public boolean overridesRightLeg() { return (overrideMask & MASK_RIGHT_LEG) != 0; }
+    @Override public boolean overridesLeftLeg() { return (overrideMask & MASK_LEFT_LEG) != 0; }
+    @Override public boolean overridesBody() { return (overrideMask & MASK_BODY) != 0; }
+
+    @Override public float getHeadOffsetX() { return channels[18]; }
+    @Override public float getHeadOffsetY() { return channels[19]; }
+    @Override public float getHeadOffsetZ() { return channels[20]; }
+    @Override public float getRightArmOffsetX() { return channels[21]; }
+    @Override public float getRightArmOffsetY() { return channels[22]; }
+    @Override public float getRightArmOffsetZ() { return channels[23]; }
+    @Override public float getLeftArmOffsetX() { return channels[24]; }
+    @Override public float getLeftArmOffsetY() { return channels[25]; }
+    @Override public float getLeftArmOffsetZ() { return channels[26]; }
+    @Override public float getRightLegOffsetX() { return channels[27]; }
+    @Override public float getRightLegOffsetY() { return channels[28]; }
+    @Override public float getRightLegOffsetZ() { return channels[29]; }
+    @Override public float getLeftLegOffsetX() { return channels[30]; }
+    @Override public float getLeftLegOffsetY() { return channels[31]; }
+    @Override public float getLeftLegOffsetZ() { return channels[32]; }
+    @Override public float getBodyOffsetX() { return channels[33]; }
+    @Override public float getBodyOffsetY() { return channels[34]; }
+    @Override public float getBodyOffsetZ() { return channels[35]; }
+}
@@ -125,6 +125,31 @@ public class PoseBuilder {
         return new BuiltPose(this);
     }
 
+    /**
+     * Write the pose into an existing buffer instead of allocating a new pose.
+     * Offsets are cleared.
+     * @param out Destination buffer
+     * @return {@code out}
+     */
+    public PoseBuffer buildInto(PoseBuffer out) {
+        out.reset();
+        out.setRotation(PoseBuffer.PART_HEAD, headX, headY, headZ);
+        out.setRotation(PoseBuffer.PART_RIGHT_ARM, rightArmX, rightArmY, rightArmZ);
+        out.setRotation(PoseBuffer.PART_LEFT_ARM, leftArmX, leftArmY, leftArmZ);
+        out.setRotation(PoseBuffer.PART_RIGHT_LEG, rightLegX, rightLegY, rightLegZ);
+        out.setRotation(PoseBuffer.PART_LEFT_LEG, leftLegX, leftLegY, leftLegZ);
+        out.setRotation(PoseBuffer.PART_BODY, bodyX, bodyY, bodyZ);
+
+        int mask = 0;
+        if (overrideHead) mask |= PoseBuffer.MASK_HEAD;
+        if (overrideRightArm) mask |= PoseBuffer.MASK_RIGHT_ARM;
+        if (overrideLeftArm) mask |= PoseBuffer.MASK_LEFT_ARM;
+        if (overrideRightLeg) mask |= PoseBuffer.MASK_RIGHT_LEG;
+        if (overrideLeftLeg) mask |= PoseBuffer.MASK_LEFT_LEG;
+        if (overrideBody) mask |= PoseBuffer.MASK_BODY;
+        return out.setOverrideMask(mask);
+    }
+
     /**
      * Internal implementation of IPose created by the builder.
      */
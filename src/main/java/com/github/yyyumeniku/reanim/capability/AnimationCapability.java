@@ -5,6 +5,7 @@ import javax.annotation.Nullable;
 import com.github.yyyumeniku.reanim.api.IAnimationController;
 import com.github.yyyumeniku.reanim.core.AnimationController;
 
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.ResourceLocation;
 
 /**
@@ -18,6 +19,10 @@ public class AnimationCapability implements IAnimationCapability {
         this.controller = new AnimationController();
     }
     
+    public AnimationCapability(EntityLivingBase entity) {
+        this.controller = new AnimationController(entity);
+    }
+    
     @Override
     public IAnimationController getController() {
         return controller;
@@ -48,6 +53,16 @@ public class AnimationCapability implements IAnimationCapability {
         controller.setCurrentTick(tick);
     }
     
+    @Override
+    public int getStateVersion() {
+        return controller.getStateVersion();
+    }
+    
+    @Override
+    public long getWorldTime() {
+        return controller.getWorldTime();
+    }
+    
     @Override
     public void tick() {
         controller.tick();
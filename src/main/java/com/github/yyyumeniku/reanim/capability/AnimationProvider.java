@@ -3,6 +3,9 @@ package com.github.yyyumeniku.reanim.capability;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraftforge.common.capabilities.Capability;
@@ -19,10 +22,23 @@ public class AnimationProvider implements ICapabilitySerializable<NBTTagCompound
     
     private final IAnimationCapability instance;
     
+    // Last saved NBT, reused until the playback state changes
+    @Nullable private NBTTagCompound savedNbt;
+    private int savedVersion;
+    
     public AnimationProvider() {
         this.instance = new AnimationCapability();
     }
     
+    public AnimationProvider(EntityLivingBase entity) {
+        this.instance = new AnimationCapability(entity);
+    }
+    
+    /** The controller backing this provider's capability */
+    public IAnimationController getController() {
+        return instance.getController();
+    }
+    
     @Override
     public boolean hasCapability(@Nonnull Capability<?> capability, @Nullable EnumFacing facing) {
         return capability == ANIMATION_CAP;
@@ -37,9 +53,18 @@ public class AnimationProvider implements ICapabilitySerializable<NBTTagCompound
         return null;
     }
     
+    /**
+     * {@inheritDoc}
+     * The returned tag is shared between saves while the state is unchanged, so it must not be modified.
+     */
     @Override
     public NBTTagCompound serializeNBT() {
-        return (NBTTagCompound) ANIMATION_CAP.getStorage().writeNBT(ANIMATION_CAP, instance, null);
+        int version = instance.getStateVersion();
+        if (savedNbt == null || version != savedVersion) {
+            savedNbt = (NBTTagCompound) ANIMATION_CAP.getStorage().writeNBT(ANIMATION_CAP, instance, null);
+            savedVersion = version;
+        }
+        return savedNbt;
     }
     
     @Override
@@ -8,23 +8,49 @@ import net.minecraftforge.common.capabilities.Capability;
 
 import javax.annotation.Nullable;
 
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+
 /**
  * NBT storage handler for animation capability.
  * Saves/loads animation state to/from NBT.
+ *
+ * Idle entities save an empty tag. Otherwise the animation ID and playhead are
+ * saved with the world time the playhead was read at, so the tag stays valid
+ * (and can be reused) until playback changes. Speed and paused are only written
+ * when not at their defaults.
  */
 public class AnimationStorage implements Capability.IStorage<IAnimationCapability> {
     
+    private static final String KEY_ID = "id";
+    private static final String KEY_TICK = "tick";
+    private static final String KEY_TIME = "time";
+    private static final String KEY_SPEED = "speed";
+    private static final String KEY_PAUSED = "paused";
+    
+    // Format written before the playhead was stamped
+    private static final String LEGACY_KEY_ANIMATION = "animation";
+    
     @Override
     @Nullable
     public NBTBase writeNBT(Capability<IAnimationCapability> capability, IAnimationCapability instance, EnumFacing side) {
         NBTTagCompound nbt = new NBTTagCompound();
         
-        ResourceLocation currentAnim = instance.getCurrentAnimationId();
-        if (currentAnim != null) {
-            nbt.setString("animation", currentAnim.toString());
-            nbt.setInteger("tick", instance.getCurrentTick());
-        }
+        IAnimationController controller = instance.getController();
+        ResourceLocation currentAnim = controller.getCurrentAnimationId();
+        if (currentAnim == null) return nbt;
         
+        nbt.setString(KEY_ID, currentAnim.toString());
+        nbt.setFloat(KEY_TICK, controller.getPlayhead());
+        long worldTime = instance.getWorldTime();
+        if (worldTime >= 0 && !controller.isPaused()) {
+            nbt.setLong(KEY_TIME, worldTime);
+        }
+        if (controller.getSpeed() != 1.0f) {
+            nbt.setFloat(KEY_SPEED, controller.getSpeed());
+        }
+        if (controller.isPaused()) {
+            nbt.setBoolean(KEY_PAUSED, true);
+        }
         return nbt;
     }
     
@@ -34,11 +60,27 @@ public class AnimationStorage implements Capability.IStorage<IAnimationCapabilit
         
         NBTTagCompound nbt = (NBTTagCompound) nbtBase;
         
-        if (nbt.hasKey("animation")) {
-            String animStr = nbt.getString("animation");
-            ResourceLocation animId = new ResourceLocation(animStr);
-            instance.setCurrentAnimation(animId);
-            instance.setCurrentTick(nbt.getInteger("tick"));
+        if (nbt.hasKey(LEGACY_KEY_ANIMATION)) {
+            String animStr = nbt.getString(LEGACY_KEY_ANIMATION);
+            instance.setCurrentAnimation(new ResourceLocation(animStr));
+            instance.setCurrentTick(nbt.getInteger(KEY_TICK));
+            return;
+        }
+        if (!nbt.hasKey(KEY_ID)) return;
+        
+        instance.setCurrentAnimation(new ResourceLocation(nbt.getString(KEY_ID)));
+        IAnimationController controller = instance.getController();
+        if (!controller.isPlaying()) return; // No longer registered
+        
+        float speed = nbt.hasKey(KEY_SPEED) ? nbt.getFloat(KEY_SPEED) : 1.0f;
+        float tick = nbt.getFloat(KEY_TICK);
+        long worldTime = instance.getWorldTime();
+        if (nbt.hasKey(KEY_TIME) && worldTime >= 0) {
+            // Play on through the time that passed since the save
+            tick += (worldTime - nbt.getLong(KEY_TIME)) * speed;
         }
+        controller.setSpeed(speed);
+        controller.seek(tick);
+        controller.setPaused(nbt.getBoolean(KEY_PAUSED));
     }
 }
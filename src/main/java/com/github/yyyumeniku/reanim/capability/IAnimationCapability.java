@@ -27,6 +27,15 @@ public interface IAnimationCapability {
     /** Set current tick (used for syncing from server) */
     void setCurrentTick(int tick);
     
-    /** Called every game tick to update the animation */
+    /** Counter that changes with every playback change; equal values mean nothing needs saving */
+    int getStateVersion();
+    
+    /** World time the current tick was read at, or -1 if the controller counts its own ticks */
+    long getWorldTime();
+    
+    /**
+     * Advance the animation by one game tick.
+     * Controllers attached to an entity are already ticked by the AnimationTickScheduler.
+     */
     void tick();
 }
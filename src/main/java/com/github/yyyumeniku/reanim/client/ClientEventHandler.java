@@ -0,0 +1,54 @@
+package com.github.yyyumeniku.reanim.client;
+
+import com.github.yyyumeniku.reanim.Tags;
+import com.github.yyyumeniku.reanim.core.AnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+import com.github.yyyumeniku.reanim.core.FrameClock;
+
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+/**
+ * Client-only tick and render hooks.
+ */
+@Mod.EventBusSubscriber(modid = Tags.MOD_ID, value = Side.CLIENT)
+public final class ClientEventHandler {
+    
+    private ClientEventHandler() {}
+    
+    @SubscribeEvent
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) return;
+        
+        Minecraft mc = Minecraft.getMinecraft();
+        if (mc.world == null) {
+            AnimationTickScheduler.CLIENT.clear();
+        } else if (!mc.isGamePaused()) {
+            // Entities don't tick while paused, neither do their animations
+            AnimationTickScheduler.CLIENT.tick();
+        }
+    }
+    
+    @SubscribeEvent
+    public static void onRenderTick(TickEvent.RenderTickEvent event) {
+        if (event.phase == TickEvent.Phase.START) {
+            AnimationMetrics.onFrame();
+            FrameClock.advance();
+        }
+    }
+    
+    @SubscribeEvent
+    public static void onDebugText(RenderGameOverlayEvent.Text event) {
+        if (!Minecraft.getMinecraft().gameSettings.showDebugInfo) return;
+        
+        AnimationTickScheduler scheduler = AnimationTickScheduler.CLIENT;
+        event.getLeft().add(String.format("REanim: %d active, %d ticking, %d blending, %d poses/frame, %.0f%% cached",
+            AnimationMetrics.getActiveControllers(), scheduler.size(), scheduler.countTransitions(), AnimationMetrics.getPosesLastFrame(),
+            AnimationController.getPoseCacheHitRate() * 100));
+    }
+}
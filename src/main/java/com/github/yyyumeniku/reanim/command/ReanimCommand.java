@@ -0,0 +1,98 @@
+package com.github.yyyumeniku.reanim.command;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
+import com.github.yyyumeniku.reanim.core.AnimationTickScheduler;
+import com.github.yyyumeniku.reanim.network.PlayRequestLimiter;
+
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.command.WrongUsageException;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+
+/**
+ * {@code /reanim stats [reset]}: prints the {@link AnimationMetrics} of this server.
+ */
+public class ReanimCommand extends CommandBase {
+    
+    private static final int TOP_ANIMATIONS = 8;
+    
+    @Override
+    public String getName() {
+        return "reanim";
+    }
+    
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "/reanim stats [reset]";
+    }
+    
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 2;
+    }
+    
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (args.length < 1 || !"stats".equals(args[0])) {
+            throw new WrongUsageException(getUsage(sender));
+        }
+        if (args.length > 1) {
+            if (!"reset".equals(args[1])) {
+                throw new WrongUsageException(getUsage(sender));
+            }
+            AnimationMetrics.reset();
+            PlayRequestLimiter.resetCounters();
+            send(sender, "REanim metrics reset");
+            return;
+        }
+        
+        AnimationTickScheduler scheduler = AnimationTickScheduler.SERVER;
+        send(sender, "REanim: " + AnimationMetrics.getActiveControllers() + " controllers active, "
+            + scheduler.size() + " ticking, " + scheduler.countTransitions() + " transitions in flight");
+        send(sender, String.format("Poses: %d evaluated, %d from cache, %d last frame",
+            AnimationMetrics.getPoseEvaluations(), AnimationMetrics.getPoseCacheHits(), AnimationMetrics.getPosesLastFrame()));
+        send(sender, String.format("Registry: %d lookups, %d misses",
+            AnimationMetrics.getRegistryLookups(), AnimationMetrics.getRegistryMisses()));
+        send(sender, String.format("Packets: %d sent (%d bytes), %d received (%d bytes)",
+            AnimationMetrics.getPacketsSent(), AnimationMetrics.getBytesSent(),
+            AnimationMetrics.getPacketsReceived(), AnimationMetrics.getBytesReceived()));
+        send(sender, String.format("Play requests: %d accepted, dropped %d rate-limited / %d duplicate / %d unknown",
+            PlayRequestLimiter.getAccepted(), PlayRequestLimiter.getDroppedRateLimited(),
+            PlayRequestLimiter.getDroppedDuplicate(), PlayRequestLimiter.getDroppedUnknown()));
+        
+        List<AnimationMetrics.Timer> timers = AnimationMetrics.getTimers();
+        if (timers.isEmpty()) {
+            // Poses are only evaluated where they are rendered
+            send(sender, "No pose evaluations timed in this process");
+            return;
+        }
+        for (int i = 0; i < Math.min(TOP_ANIMATIONS, timers.size()); i++) {
+            AnimationMetrics.Timer timer = timers.get(i);
+            send(sender, String.format("  %s: %d evals, mean %.1f us, p99 < %.1f us",
+                timer.getAnimationId(), timer.getCount(), timer.getMeanNanos() / 1000.0, timer.getP99Nanos() / 1000.0));
+        }
+    }
+    
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args, @Nullable BlockPos targetPos) {
+        if (args.length == 1) {
+            return getListOfStringsMatchingLastWord(args, "stats");
+        }
+        if (args.length == 2 && "stats".equals(args[0])) {
+            return getListOfStringsMatchingLastWord(args, "reset");
+        }
+        return Collections.emptyList();
+    }
+    
+    private static void send(ICommandSender sender, String message) {
+        sender.sendMessage(new TextComponentString(message));
+    }
+}
@@ -2,80 +2,309 @@ package com.github.yyyumeniku.reanim.core;
 
 import javax.annotation.Nullable;
 
+import com.github.yyyumeniku.reanim.REanimConfig;
 import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+import com.github.yyyumeniku.reanim.api.AnimationStateMachine;
+import com.github.yyyumeniku.reanim.api.Easing;
+import com.github.yyyumeniku.reanim.api.IAnimatedEntity;
 import com.github.yyyumeniku.reanim.api.IAnimation;
 import com.github.yyyumeniku.reanim.api.IAnimationController;
 import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PlaybackContext;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+import com.github.yyyumeniku.reanim.network.AnimationSyncBatcher;
 
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.ResourceLocation;
 
 /**
  * Optimized animation controller for single entity.
  * Manages playback, transitions, and pose calculation.
+ * 
+ * The evaluated pose is memoized per render frame: ModelBiped.setRotationAngles
+ * runs once for the main model and again for every armor/elytra/held-item layer,
+ * and all of those calls in the same frame share one evaluation.
+ * Far away entities are further reduced by {@link AnimationLod}.
+ * 
+ * The playhead is not advanced by a counter. It is derived from a clock whenever it
+ * is read: {@code anchorPlayhead + (now + partialTicks - anchorTime) * speed}.
+ * Controllers with an owner entity use the world clock by default, so a looping
+ * animation needs no per-tick work at all, fractional speeds play exactly and
+ * seeking is O(1). Standalone controllers count their own clock in {@link #tick()}.
+ * 
+ * Controllers with an owner entity are ticked by the {@link AnimationTickScheduler}
+ * of the entity's side while they have time-based work to do: a transition, a
+ * non-looping animation that has to end, or any animation on the local clock.
+ * 
+ * On the server, every playback change is queued with the {@link AnimationSyncBatcher}
+ * and sent to tracking players at the end of the tick.
+ * 
+ * Besides the base animation a controller can hold a stack of {@link AnimationLayer}s,
+ * each with its own playback and part mask. Their poses are composited in priority
+ * order into one buffer with {@link PoseBuffer#overlay}; a controller without layers
+ * skips compositing entirely.
+ * 
+ * The {@link IAnimation} lifecycle hooks are dispatched for controllers with an owner:
+ * {@code shouldPlay} before an animation starts and every tick while it plays,
+ * {@code onStart} and {@code onEnd} when it starts and ends or is stopped or replaced,
+ * and {@code onTick} every tick. Only animations that override {@code shouldPlay} or
+ * {@code onTick} keep the controller ticking for them.
+ * 
+ * A controller can also run an {@link AnimationStateMachine}, which picks the
+ * animation from the controller's parameters once per tick.
+ * Lazily created controllers ({@link #createLazy}) detach themselves from their
+ * entity after {@link REanimConfig#idleReleaseTicks} idle ticks.
  */
 public final class AnimationController implements IAnimationController {
     
+    private static final AnimationLayer[] NO_LAYERS = new AnimationLayer[0];
+    
+    // Whether an animation class overrides a hook that has to run every tick
+    private static final ClassValue<Boolean> HAS_TICK_HOOKS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return overrides(type, "shouldPlay", EntityLivingBase.class)
+                || overrides(type, "onTick", EntityLivingBase.class, int.class);
+        }
+    };
+    
+    @Nullable private final EntityLivingBase owner;
+    @Nullable private final AnimationTickScheduler scheduler;
+    // Controller whose layer this is; layers are ticked, scheduled and rendered through it
+    @Nullable private final AnimationController parent;
+    // Index in the scheduler's active array, or -1 when not scheduled
+    int schedulerSlot = -1;
+    private boolean releaseWhenIdle;
+    private int idleTicks;
+    // Whether this controller is counted in AnimationMetrics' active controllers
+    private boolean countedActive;
+    
     @Nullable private IAnimation currentAnimation;
     @Nullable private ResourceLocation currentAnimationId;
-    @Nullable private IPose previousPose;
+    private int currentAnimationHandle = AnimationRegistry.NO_ID;
+    @Nullable private AnimationMetrics.Timer evaluationTimer;
+    private boolean tickHooks;
     
-    private int currentTick;
+    // Reused pose buffers: snapshot of the pose we transition from, the animation's
+    // own pose during a transition, and the evaluated output handed to callers
+    private final PoseBuffer previousPose = new PoseBuffer();
+    private final PoseBuffer targetPose = new PoseBuffer();
+    private final PoseBuffer outputPose = new PoseBuffer();
+    private boolean hasPreviousPose;
+    private final PlaybackContext context = new PlaybackContext();
+    
+    // Per-frame pose cache, keyed on FrameClock frame + partialTicks
+    private int cachedFrame;
+    private float cachedPartialTicks;
+    @Nullable private PoseBuffer cachedPose;
+    
+    // Level of detail: band of the current frame, the frame of the last real evaluation,
+    // and whether its pose may still be reused (cleared by every playback change)
+    private int lodBand;
+    private int lodFrame;
+    private boolean lodPoseValid;
+    
+    // Playback clock: the playhead equals anchorPlayhead at clock time anchorTime
+    private boolean worldClock;
+    private long localTime;
+    private long anchorTime;
+    private float anchorPlayhead;
     private float speed = 1.0f;
     private boolean paused;
-    private int transitionTicks;
+    private long transitionStart;
     private int transitionTicksTotal;
+    private Easing transitionEasing = Easing.LINEAR;
+    
+    // Drift correction: extra playhead rate during the first correctionTicks after the anchor
+    private float correctionRate;
+    private int correctionTicks;
+    
+    // Bumped on every playback change, so savers can tell when nothing has changed
+    private int stateVersion;
+    
+    // Layers sorted by priority, and the buffer they are composited into (created with the first layer)
+    private AnimationLayer[] layers = NO_LAYERS;
+    @Nullable private PoseBuffer compositePose;
+    
+    // State machine picking the animation, and the index of its current state
+    @Nullable private AnimationStateMachine stateMachine;
+    private int machineState = -1;
+    // Progress of the state's animation at the last update, and whether it has wrapped since the state was entered
+    private float machineProgress;
+    private boolean machineCycleEnded;
+    
+    /**
+     * Create a controller that is not scheduled; the caller must {@link #tick()} it.
+     */
+    public AnimationController() {
+        this(null, null);
+    }
+    
+    /**
+     * Create a controller for an entity, ticked by the scheduler of the entity's side.
+     */
+    public AnimationController(@Nullable EntityLivingBase owner) {
+        this(owner, null);
+    }
+    
+    /**
+     * Create a controller ticked by a specific scheduler.
+     * @param owner The animated entity, or null
+     * @param scheduler The scheduler, or null to pick one from the owner's side
+     */
+    public AnimationController(@Nullable EntityLivingBase owner, @Nullable AnimationTickScheduler scheduler) {
+        this.owner = owner;
+        this.scheduler = scheduler;
+        this.parent = null;
+        this.worldClock = owner != null;
+    }
+    
+    /** Create the playback of a layer of {@code parent} */
+    private AnimationController(AnimationController parent) {
+        this.owner = parent.owner;
+        this.scheduler = parent.scheduler;
+        this.parent = parent;
+        this.worldClock = parent.worldClock;
+    }
+    
+    /**
+     * Create a controller for an entity without the animation capability.
+     * Once it has been idle for {@link REanimConfig#idleReleaseTicks} it removes
+     * itself from the entity, so mobs that stopped animating carry no controller.
+     */
+    public static AnimationController createLazy(EntityLivingBase owner) {
+        AnimationController controller = new AnimationController(owner);
+        controller.releaseWhenIdle = true;
+        return controller;
+    }
     
     @Override
     public void play(ResourceLocation animationId) {
-        IAnimation anim = AnimationRegistry.get(animationId);
+        int handle = AnimationRegistry.idOf(animationId);
+        IAnimation anim = handle != AnimationRegistry.NO_ID ? AnimationRegistry.get(handle) : AnimationRegistry.get(animationId);
         if (anim != null) {
-            play(animationId, anim.getTransitionInTicks());
+            start(anim, animationId, handle, anim.getTransitionInTicks());
         }
     }
     
     @Override
     public void play(ResourceLocation animationId, int transitionTicks) {
-        IAnimation newAnim = AnimationRegistry.get(animationId);
-        if (newAnim == null || animationId.equals(currentAnimationId)) {
+        int handle = AnimationRegistry.idOf(animationId);
+        IAnimation anim = handle != AnimationRegistry.NO_ID ? AnimationRegistry.get(handle) : AnimationRegistry.get(animationId);
+        if (anim != null) {
+            start(anim, animationId, handle, transitionTicks);
+        }
+    }
+    
+    @Override
+    public void play(int animationHandle) {
+        IAnimation anim = AnimationRegistry.get(animationHandle);
+        if (anim != null) {
+            start(anim, anim.getId(), animationHandle, anim.getTransitionInTicks());
+        }
+    }
+    
+    @Override
+    public void play(int animationHandle, int transitionTicks) {
+        IAnimation anim = AnimationRegistry.get(animationHandle);
+        if (anim != null) {
+            start(anim, anim.getId(), animationHandle, transitionTicks);
+        }
+    }
+    
+    private void start(IAnimation newAnim, ResourceLocation animationId, int handle, int transitionTicks) {
+        boolean byHandle = handle != AnimationRegistry.NO_ID && currentAnimationHandle != AnimationRegistry.NO_ID;
+        if (byHandle ? handle == currentAnimationHandle : animationId.equals(currentAnimationId)) {
+            return;
+        }
+        if (owner != null && !newAnim.shouldPlay(owner)) {
             return;
         }
         
+        long now = now();
+        IAnimation replaced = currentAnimation;
+        
         // Store previous pose for blending
         if (currentAnimation != null && transitionTicks > 0) {
-            this.previousPose = currentAnimation.getPoseAtProgress(getProgress(), 0);
-            this.transitionTicks = transitionTicks;
+            currentAnimation.writePose(getProgress(), 0, previousPose, context);
+            this.hasPreviousPose = true;
+            this.transitionStart = now;
             this.transitionTicksTotal = transitionTicks;
+            this.transitionEasing = newAnim.getTransitionInEasing();
         } else {
-            this.previousPose = null;
-            this.transitionTicks = 0;
+            this.hasPreviousPose = false;
             this.transitionTicksTotal = 0;
         }
         
         this.currentAnimation = newAnim;
         this.currentAnimationId = animationId;
-        this.currentTick = 0;
+        this.currentAnimationHandle = handle;
+        this.evaluationTimer = AnimationMetrics.timer(animationId);
+        updateActiveCount();
+        this.tickHooks = owner != null && HAS_TICK_HOOKS.get(newAnim.getClass());
+        this.anchorPlayhead = 0;
+        this.anchorTime = now;
         this.paused = false;
+        context.reset();
+        invalidatePoseCache();
+        schedule();
+        markSyncDirty();
+        
+        if (owner != null) {
+            if (replaced != null) {
+                replaced.onEnd(owner);
+            }
+            newAnim.onStart(owner);
+        }
     }
     
     @Override
     public void stop() {
+        clear();
+        markSyncDirty();
+    }
+    
+    /** Stop without telling clients; they end the animation on their own clock */
+    private void clear() {
+        IAnimation ended = currentAnimation;
         currentAnimation = null;
         currentAnimationId = null;
-        currentTick = 0;
-        previousPose = null;
-        transitionTicks = 0;
+        currentAnimationHandle = AnimationRegistry.NO_ID;
+        anchorPlayhead = 0;
+        hasPreviousPose = false;
+        updateActiveCount();
+        stateVersion++;
+        invalidatePoseCache();
+        if (parent != null) {
+            layerChanged();
+        }
+        schedule();
+        if (ended != null && owner != null) {
+            ended.onEnd(owner);
+        }
     }
     
     @Override
     public void stopWithTransition(int ticks) {
+        IAnimation ended = currentAnimation;
         if (currentAnimation != null && ticks > 0) {
-            previousPose = currentAnimation.getPoseAtProgress(getProgress(), 0);
-            transitionTicks = ticks;
+            currentAnimation.writePose(getProgress(), 0, previousPose, context);
+            hasPreviousPose = true;
+            transitionStart = now();
             transitionTicksTotal = ticks;
+            transitionEasing = currentAnimation.getTransitionOutEasing();
         }
         currentAnimation = null;
         currentAnimationId = null;
-        currentTick = 0;
+        currentAnimationHandle = AnimationRegistry.NO_ID;
+        anchorPlayhead = 0;
+        updateActiveCount();
+        invalidatePoseCache();
+        schedule();
+        markSyncDirty();
+        if (ended != null && owner != null) {
+            ended.onEnd(owner);
+        }
     }
     
     @Override
@@ -94,25 +323,81 @@ public final class AnimationController implements IAnimationController {
         return currentAnimationId;
     }
     
+    @Override
+    public int getCurrentAnimationHandle() {
+        return currentAnimationHandle;
+    }
+    
     @Override
     public float getProgress() {
         if (currentAnimation == null) return 0;
         int duration = currentAnimation.getDurationTicks();
-        return duration > 0 ? (float) currentTick / duration : 0;
+        return duration > 0 ? playhead(now(), 0) / duration : 0;
     }
     
     @Override
     public int getCurrentTick() {
-        return currentTick;
+        return currentAnimation != null ? (int) playhead(now(), 0) : 0;
     }
     
     public void setCurrentTick(int tick) {
-        this.currentTick = tick;
+        seek(tick);
+    }
+    
+    /**
+     * Jump to a point in the current animation.
+     * @param tick Playhead position in ticks (fractions allowed)
+     */
+    @Override
+    public void seek(float tick) {
+        anchor(tick);
+        invalidatePoseCache();
+        markSyncDirty();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Drift up to {@link REanimConfig#driftThresholdTicks} is ignored. Larger drift is
+     * spread over {@link REanimConfig#driftCorrectionTicks} by briefly playing faster
+     * or slower, and drift above {@link REanimConfig#driftSnapTicks} jumps directly.
+     */
+    @Override
+    public void correctDrift(float expectedTick) {
+        if (currentAnimation == null) return;
+        
+        float current = playhead(now(), 0);
+        float error = expectedTick - current;
+        int duration = currentAnimation.getDurationTicks();
+        if (currentAnimation.isLooping() && duration > 0) {
+            // Take the short way around the loop
+            error -= Math.round(error / duration) * duration;
+        }
+        
+        float drift = Math.abs(error);
+        if (drift <= REanimConfig.driftThresholdTicks) return;
+        if (paused || drift > REanimConfig.driftSnapTicks || REanimConfig.driftCorrectionTicks <= 0) {
+            seek(expectedTick);
+            return;
+        }
+        anchor(current);
+        correctionTicks = REanimConfig.driftCorrectionTicks;
+        correctionRate = error / correctionTicks;
+        invalidatePoseCache();
+    }
+    
+    @Override
+    public float getPlayhead() {
+        return currentAnimation != null ? playhead(now(), 0) : 0;
     }
     
     @Override
     public void setSpeed(float speed) {
+        if (currentAnimation != null) {
+            anchor(playhead(now(), 0));
+        }
         this.speed = Math.max(0, speed);
+        invalidatePoseCache();
+        markSyncDirty();
     }
     
     @Override
@@ -122,7 +407,16 @@ public final class AnimationController implements IAnimationController {
     
     @Override
     public void setPaused(boolean paused) {
+        if (currentAnimation != null && paused != this.paused) {
+            // Freeze (or resume from) the playhead at the current time
+            anchor(playhead(now(), 0));
+        }
         this.paused = paused;
+        invalidatePoseCache();
+        markSyncDirty();
+        if (!paused) {
+            schedule();
+        }
     }
     
     @Override
@@ -130,19 +424,220 @@ public final class AnimationController implements IAnimationController {
         return paused;
     }
     
+    /**
+     * Choose the clock driving the playhead, keeping the current position.
+     * @param worldClock true to follow the owner's world time, false to count ticks in {@link #tick()}
+     */
+    public void setWorldClock(boolean worldClock) {
+        if (this.worldClock == worldClock) return;
+        
+        long oldNow = now();
+        float playhead = currentAnimation != null ? playhead(oldNow, 0) : 0;
+        long transitionElapsed = oldNow - transitionStart;
+        this.worldClock = worldClock;
+        anchor(playhead);
+        transitionStart = now() - transitionElapsed;
+        stateVersion++;
+        invalidatePoseCache();
+        for (AnimationLayer layer : layers) {
+            layer.playback.setWorldClock(worldClock);
+        }
+        schedule();
+    }
+    
+    /** Whether the playhead follows the owner's world time */
+    public boolean isWorldClock() {
+        return usesWorldClock();
+    }
+    
+    /**
+     * Get the layer at a priority, adding it if there is none.
+     * @param priority Composite order; 0 is the base animation, lower goes under it, higher on top
+     * @throws IllegalArgumentException If priority is 0
+     */
+    public AnimationLayer layer(int priority) {
+        AnimationLayer existing = getLayer(priority);
+        if (existing != null) return existing;
+        if (priority == 0) {
+            throw new IllegalArgumentException("Priority 0 is the base animation");
+        }
+        if (parent != null) {
+            throw new IllegalStateException("Layers can't have layers");
+        }
+        
+        AnimationController playback = new AnimationController(this);
+        playback.context.copyParameters(context);
+        AnimationLayer layer = new AnimationLayer(priority, playback);
+        AnimationLayer[] grown = new AnimationLayer[layers.length + 1];
+        int i = 0;
+        for (; i < layers.length && layers[i].getPriority() < priority; i++) {
+            grown[i] = layers[i];
+        }
+        grown[i] = layer;
+        System.arraycopy(layers, i, grown, i + 1, layers.length - i);
+        layers = grown;
+        if (compositePose == null) {
+            compositePose = new PoseBuffer();
+        }
+        return layer;
+    }
+    
+    /** Get the layer at a priority, or null if there is none */
+    @Nullable
+    public AnimationLayer getLayer(int priority) {
+        for (AnimationLayer layer : layers) {
+            if (layer.getPriority() == priority) return layer;
+        }
+        return null;
+    }
+    
+    /** Every layer, lowest priority first. The array must not be modified. */
+    public AnimationLayer[] getLayers() {
+        return layers;
+    }
+    
+    /** Remove the layer at a priority, ending its animation without a transition */
+    public void removeLayer(int priority) {
+        for (int i = 0; i < layers.length; i++) {
+            if (layers[i].getPriority() != priority) continue;
+            
+            AnimationController removed = layers[i].playback;
+            AnimationLayer[] shrunk = new AnimationLayer[layers.length - 1];
+            System.arraycopy(layers, 0, shrunk, 0, i);
+            System.arraycopy(layers, i + 1, shrunk, i, layers.length - i - 1);
+            layers = shrunk.length > 0 ? shrunk : NO_LAYERS;
+            layerChanged();
+            // Unlinked first, so an onEnd hook that plays a layer again is not removed with it
+            removed.clear();
+            return;
+        }
+    }
+    
+    @Override
+    public void playLayer(int priority, int partMask, ResourceLocation animationId, int transitionTicks) {
+        AnimationLayer layer = layer(priority);
+        layer.setPartMask(partMask);
+        layer.playback.play(animationId, transitionTicks);
+    }
+    
+    @Override
+    public void stopLayer(int priority, int transitionTicks) {
+        AnimationLayer layer = getLayer(priority);
+        if (layer != null) {
+            layer.playback.stopWithTransition(transitionTicks);
+        }
+    }
+    
+    @Override
+    public boolean isLayerPlaying(int priority) {
+        AnimationLayer layer = getLayer(priority);
+        return layer != null && layer.playback.isPlaying();
+    }
+    
+    /**
+     * {@inheritDoc}
+     * Layers see the same parameters as the base animation.
+     */
+    @Override
+    public void setParameter(int parameter, float value) {
+        context.setParameter(parameter, value);
+        for (AnimationLayer layer : layers) {
+            layer.playback.setParameter(parameter, value);
+        }
+        invalidatePoseCache();
+    }
+    
+    @Override
+    public float getParameter(int parameter) {
+        return context.getParameter(parameter);
+    }
+    
+    /**
+     * {@inheritDoc}
+     * The returned pose is this controller's output buffer; it is overwritten
+     * by the next evaluation.
+     */
     @Override
     @Nullable
     public IPose getCurrentPose(float partialTicks) {
+        return getCurrentPoseBuffer(partialTicks);
+    }
+    
+    @Override
+    @Nullable
+    public PoseBuffer getCurrentPoseBuffer(float partialTicks) {
+        return getCurrentPoseBuffer(partialTicks, 0);
+    }
+    
+    @Override
+    @Nullable
+    public PoseBuffer getCurrentPoseBuffer(float partialTicks, double cameraDistanceSq) {
+        if (currentAnimation == null && !hasPreviousPose && !hasActiveLayer()) return null;
+        
+        int frame = FrameClock.currentFrame();
+        if (frame != 0 && frame == cachedFrame && partialTicks == cachedPartialTicks) {
+            AnimationMetrics.poseCacheHit();
+            return cachedPose;
+        }
+        
+        // First request this frame decides the detail band
+        lodBand = AnimationLod.bandOf(cameraDistanceSq);
+        if (lodBand > 0 && frame != 0 && lodPoseValid
+                && frame - lodFrame < AnimationLod.frameInterval(lodBand)) {
+            // Far away: keep the last evaluated pose until the band's interval has passed
+            AnimationMetrics.poseCacheHit();
+            cachedFrame = frame;
+            cachedPartialTicks = partialTicks;
+            return cachedPose;
+        }
+        AnimationMetrics.poseEvaluated();
+        
+        PoseBuffer pose;
+        AnimationMetrics.Timer timer = REanimConfig.collectTimings && currentAnimation != null ? evaluationTimer : null;
+        if (timer != null) {
+            long start = System.nanoTime();
+            pose = evaluatePose(partialTicks, lodBand > 0);
+            timer.record(System.nanoTime() - start);
+        } else {
+            pose = evaluatePose(partialTicks, lodBand > 0);
+        }
+        if (layers.length > 0) {
+            pose = composite(pose, partialTicks, lodBand > 0);
+        }
+        cachedFrame = frame;
+        cachedPartialTicks = partialTicks;
+        cachedPose = pose;
+        lodFrame = frame;
+        lodPoseValid = true;
+        return pose;
+    }
+    
+    @Override
+    public int getLodBand() {
+        return lodBand;
+    }
+    
+    /**
+     * @param snapTransitions Skip transition blending and show the target pose (reduced detail)
+     */
+    @Nullable
+    private PoseBuffer evaluatePose(float partialTicks, boolean snapTransitions) {
+        long now = now();
+        // Part weights only drop below 1 in the fade out below; only additive animations set the mask
+        outputPose.setWeight(1.0f).setAdditiveMask(0);
+        targetPose.setWeight(1.0f).setAdditiveMask(0);
+        
         // Handle transition blending
-        if (transitionTicks > 0 && previousPose != null && transitionTicksTotal > 0) {
-            float progress = 1.0f - (transitionTicks - partialTicks) / transitionTicksTotal;
+        if (!snapTransitions && hasPreviousPose && now - transitionStart < transitionTicksTotal) {
+            float progress = (now - transitionStart + partialTicks) / transitionTicksTotal;
             progress = Math.max(0, Math.min(1, progress));
             
             if (currentAnimation != null) {
-                IPose target = currentAnimation.getPoseAtProgress(getProgress(), partialTicks);
-                return PoseInterpolator.interpolate(previousPose, target, progress);
+                currentAnimation.writePose(getProgress(), partialTicks, targetPose, context);
+                return PoseInterpolator.interpolateInto(previousPose, targetPose, progress, transitionEasing, outputPose);
             }
-            return previousPose;
+            // Stopped with a transition: fade the last pose out over the vanilla one
+            return outputPose.set(previousPose).setWeight(1.0f - transitionEasing.apply(progress));
         }
         
         if (currentAnimation == null) return null;
@@ -150,45 +645,370 @@ public final class AnimationController implements IAnimationController {
         // Calculate smooth progress with partial ticks
         int duration = currentAnimation.getDurationTicks();
         if (duration <= 0) {
-            return currentAnimation.getPoseAtProgress(0, partialTicks);
+            currentAnimation.writePose(0, partialTicks, outputPose, context);
+            return outputPose;
         }
         
-        float smoothProgress = paused ? getProgress() : (currentTick + partialTicks * speed) / duration;
+        float smoothProgress = playhead(now, partialTicks) / duration;
+        currentAnimation.writePose(smoothProgress, partialTicks, outputPose, context);
+        return outputPose;
+    }
+    
+    /**
+     * Overlay the base pose and every layer's pose in priority order, in a single
+     * pass per layer over the parts its mask lets through.
+     * @return The composited pose, or null if nothing overrides any part
+     */
+    @Nullable
+    private PoseBuffer composite(@Nullable PoseBuffer base, float partialTicks, boolean snapTransitions) {
+        PoseBuffer out = compositePose;
+        out.setOverrideMask(0).setAdditiveMask(0);
+        boolean baseDone = false;
+        for (AnimationLayer layer : layers) {
+            if (!baseDone && layer.getPriority() > 0) {
+                if (base != null) out.overlay(base, PoseBuffer.MASK_ALL, 1.0f);
+                baseDone = true;
+            }
+            if (layer.partMask == 0 || layer.weight <= 0) continue;
+            PoseBuffer pose = layer.playback.evaluatePose(partialTicks, snapTransitions);
+            if (pose != null) {
+                out.overlay(pose, layer.partMask, layer.weight);
+            }
+        }
+        if (!baseDone && base != null) {
+            out.overlay(base, PoseBuffer.MASK_ALL, 1.0f);
+        }
+        return out.getOverrideMask() != 0 ? out : null;
+    }
+    
+    @Override
+    public void tick() {
+        // The clock moved on; far away entities may still reuse their reduced-detail pose
+        cachedFrame = 0;
+        localTime++;
+        for (AnimationLayer layer : layers) {
+            layer.playback.tick();
+        }
+        long now = now();
         
-        if (currentAnimation.isLooping()) {
-            smoothProgress = smoothProgress % 1.0f;
-            if (smoothProgress < 0) smoothProgress += 1.0f;
-        } else {
-            smoothProgress = Math.min(1.0f, smoothProgress);
+        if (hasPreviousPose && now - transitionStart >= transitionTicksTotal) {
+            hasPreviousPose = false;
         }
         
-        return currentAnimation.getPoseAtProgress(smoothProgress, partialTicks);
+        if (currentAnimation != null && !paused) {
+            tickAnimation(now);
+        }
+        if (stateMachine != null) {
+            updateStateMachine();
+        }
     }
     
+    private void tickAnimation(long now) {
+        IAnimation animation = currentAnimation;
+        if (tickHooks && !animation.shouldPlay(owner)) {
+            stopWithTransition(animation.getTransitionOutTicks());
+            return;
+        }
+        
+        int duration = animation.getDurationTicks();
+        if (duration > 0 && !animation.isLooping() && unwrappedPlayhead(now, 0) >= duration) {
+            clear();
+            return;
+        }
+        if (tickHooks) {
+            animation.onTick(owner, (int) playhead(now, 0));
+        }
+    }
+    
+    /**
+     * Run a state machine on this controller, entering its default state right away
+     * (or on the first tick its animation can play).
+     * @param machine The state machine, or null to stop running one (the current animation keeps playing)
+     */
     @Override
-    public void tick() {
-        if (transitionTicks > 0) {
-            transitionTicks--;
-            if (transitionTicks <= 0) {
-                previousPose = null;
+    public void setStateMachine(@Nullable AnimationStateMachine machine) {
+        if (machine == stateMachine) return;
+        
+        this.stateMachine = machine;
+        this.machineState = -1;
+        if (machine != null) {
+            enterState(machine.getDefaultState(), transitionTicksFor(machine.getDefaultState()));
+        }
+        schedule();
+    }
+    
+    @Override
+    @Nullable
+    public AnimationStateMachine getStateMachine() {
+        return stateMachine;
+    }
+    
+    /** Index of the state machine's current state, or -1 without a state machine */
+    public int getMachineState() {
+        return machineState;
+    }
+    
+    @Override
+    @Nullable
+    public String getCurrentStateName() {
+        return stateMachine != null && machineState >= 0 ? stateMachine.getStateName(machineState) : null;
+    }
+    
+    /** Check the current state's transitions once and take the first that can fire */
+    private void updateStateMachine() {
+        AnimationStateMachine machine = stateMachine;
+        if (machineState < 0) {
+            // The default state's animation could not be played yet
+            int initial = machine.getDefaultState();
+            enterState(initial, transitionTicksFor(initial));
+            return;
+        }
+        
+        float progress = 1.0f;
+        if (currentAnimation != null) {
+            float wrapped = getProgress();
+            // A looping animation wrapping around has finished the cycle the state was entered in
+            if (wrapped < machineProgress) {
+                machineCycleEnded = true;
             }
+            machineProgress = wrapped;
+            progress = machineCycleEnded ? 1.0f : wrapped;
+        }
+        int transition = machine.findTransition(machineState, progress, context);
+        if (transition >= 0) {
+            enterState(machine.getTransitionTarget(transition), machine.getTransitionTicks(transition));
+        }
+    }
+    
+    /**
+     * Play a state's animation and make it the current state once the animation is
+     * actually playing. If play() does nothing (the animation is not registered or
+     * refuses to play) the machine stays where it was and retries on a later tick.
+     */
+    private void enterState(int state, int transitionTicks) {
+        AnimationStateMachine machine = stateMachine;
+        int handle = machine.getStateHandle(state);
+        if (state == machineState && playsStateAnimation(state, handle)) {
+            // Transition into the same state restarts its animation
+            seek(0);
+        } else if (handle != AnimationRegistry.NO_ID) {
+            play(handle, transitionTicks);
+        } else {
+            play(machine.getStateAnimation(state), transitionTicks);
+        }
+        
+        if (playsStateAnimation(state, handle)) {
+            machineState = state;
+            machineProgress = getProgress();
+            machineCycleEnded = false;
+        }
+    }
+    
+    private boolean playsStateAnimation(int state, int handle) {
+        if (currentAnimation == null) return false;
+        return handle != AnimationRegistry.NO_ID ? handle == currentAnimationHandle
+            : stateMachine.getStateAnimation(state).equals(currentAnimationId);
+    }
+    
+    private int transitionTicksFor(int state) {
+        IAnimation animation = AnimationRegistry.get(stateMachine.getStateAnimation(state));
+        return animation != null ? animation.getTransitionInTicks() : 0;
+    }
+    
+    private static boolean overrides(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes).getDeclaringClass() != IAnimation.class;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
+    }
+    
+    private boolean usesWorldClock() {
+        return worldClock && owner != null && owner.world != null;
+    }
+    
+    /** Current clock time in ticks */
+    private long now() {
+        return usesWorldClock() ? owner.world.getTotalWorldTime() : localTime;
+    }
+    
+    private void anchor(float playhead) {
+        anchorPlayhead = playhead;
+        anchorTime = now();
+        correctionRate = 0;
+    }
+    
+    /** Playhead in ticks at {@code now + partialTicks}, before looping or clamping */
+    private double unwrappedPlayhead(long now, float partialTicks) {
+        if (paused) return anchorPlayhead;
+        double elapsed = (now - anchorTime) + (double) partialTicks;
+        double ticks = anchorPlayhead + elapsed * speed;
+        if (correctionRate != 0) {
+            ticks += Math.min(elapsed, correctionTicks) * correctionRate;
+        }
+        return ticks;
+    }
+    
+    /** Playhead in ticks, wrapped for looping animations and clamped otherwise */
+    private float playhead(long now, float partialTicks) {
+        int duration = currentAnimation.getDurationTicks();
+        if (duration <= 0) return 0;
         
-        if (currentAnimation == null || paused) return;
+        double ticks = unwrappedPlayhead(now, partialTicks);
+        if (currentAnimation.isLooping()) {
+            ticks %= duration;
+            if (ticks < 0) ticks += duration;
+        } else {
+            ticks = Math.max(0, Math.min(duration, ticks));
+        }
+        return (float) ticks;
+    }
+    
+    /**
+     * World time the playhead is measured against, or -1 while counting local ticks.
+     * A playhead read at this time keeps extrapolating correctly until the state version changes.
+     */
+    public long getWorldTime() {
+        return usesWorldClock() ? owner.world.getTotalWorldTime() : -1;
+    }
+    
+    /**
+     * Counter that changes whenever playback is started, stopped, seeked, paused
+     * or changes speed, including when an animation ends on its own.
+     */
+    public int getStateVersion() {
+        return stateVersion;
+    }
+    
+    /** The animated entity, or null for a standalone controller */
+    @Nullable
+    public EntityLivingBase getOwner() {
+        return owner;
+    }
+    
+    /** Whether a transition blend is in progress */
+    boolean isTransitioning() {
+        return hasPreviousPose;
+    }
+    
+    /** Whether any layer contributes to the pose */
+    private boolean hasActiveLayer() {
+        for (AnimationLayer layer : layers) {
+            if (layer.isActive()) return true;
+        }
+        return false;
+    }
+    
+    /** Whether {@link #tick()} would change anything */
+    boolean needsTick() {
+        if (hasPreviousPose || stateMachine != null) return true;
+        for (AnimationLayer layer : layers) {
+            if (layer.playback.needsTick()) return true;
+        }
+        if (currentAnimation == null || paused) return false;
+        if (tickHooks) return true;
+        // On the world clock only the end of a non-looping animation needs a tick
+        return !usesWorldClock() || !currentAnimation.isLooping();
+    }
+    
+    /**
+     * Called by the scheduler for every idle tick.
+     * @return true once the controller should leave the active set
+     */
+    boolean tickIdle() {
+        // Playing controllers that need no ticks (looping on the world clock) just leave
+        if (!releaseWhenIdle || currentAnimation != null || stateMachine != null || hasActiveLayer()) return true;
+        if (++idleTicks < REanimConfig.idleReleaseTicks) return false;
         
-        currentTick += (int) speed;
-        if (speed != (int) speed) {
-            // Handle fractional speeds with accumulation
-            currentTick = (int) (currentTick + (speed - (int) speed));
+        // Detach from the entity; the next play() allocates a fresh controller
+        if (owner != null && ((IAnimatedEntity) owner).reanim$getController() == this) {
+            ((IAnimatedEntity) owner).reanim$setController(null);
+        }
+        return true;
+    }
+    
+    /**
+     * Called by the scheduler when it drops this controller because its entity or
+     * world is gone, so it no longer counts as active.
+     */
+    void discarded() {
+        if (countedActive) {
+            countedActive = false;
+            AnimationMetrics.controllerActive(false);
+        }
+    }
+    
+    // Layers are counted through their owner
+    private void updateActiveCount() {
+        boolean active = parent == null && currentAnimation != null;
+        if (active != countedActive) {
+            countedActive = active;
+            AnimationMetrics.controllerActive(active);
+        }
+    }
+    
+    private void schedule() {
+        if (parent != null) {
+            parent.schedule();
+            return;
         }
+        idleTicks = 0;
+        if (schedulerSlot >= 0) return;
+        // Idle lazy controllers stay scheduled to count down to their release
+        if (!needsTick() && !(releaseWhenIdle && currentAnimation == null && !hasActiveLayer())) return;
         
-        int duration = currentAnimation.getDurationTicks();
-        if (duration > 0) {
-            if (currentAnimation.isLooping()) {
-                currentTick = currentTick % duration;
-            } else if (currentTick >= duration) {
-                stop();
-            }
+        AnimationTickScheduler target = scheduler != null ? scheduler : AnimationTickScheduler.forEntity(owner);
+        if (target != null) {
+            target.schedule(this);
         }
     }
+    
+    private void markSyncDirty() {
+        stateVersion++;
+        if (parent != null) {
+            // Layers are not synced; make the owner re-evaluate instead
+            layerChanged();
+            return;
+        }
+        if (owner != null && owner.world != null && !owner.world.isRemote) {
+            AnimationSyncBatcher.markDirty(this);
+        }
+    }
+    
+    /** Drop the per-frame and reduced-detail poses after a playback change, a layer's included */
+    private void invalidatePoseCache() {
+        cachedFrame = 0;
+        lodPoseValid = false;
+        if (parent != null) {
+            parent.invalidatePoseCache();
+        }
+    }
+    
+    /** Drop the owner's cached and reduced-detail poses after a layer changed */
+    void layerChanged() {
+        AnimationController target = parent != null ? parent : this;
+        target.invalidatePoseCache();
+    }
+    
+    /** Number of pose requests served from the per-frame cache */
+    public static long getPoseCacheHits() {
+        return AnimationMetrics.getPoseCacheHits();
+    }
+    
+    /** Number of pose requests that had to evaluate the animation */
+    public static long getPoseCacheMisses() {
+        return AnimationMetrics.getPoseEvaluations();
+    }
+    
+    /** Fraction of pose requests served from the per-frame cache (0.0 to 1.0) */
+    public static float getPoseCacheHitRate() {
+        long hits = getPoseCacheHits();
+        long total = hits + getPoseCacheMisses();
+        return total > 0 ? (float) hits / total : 0;
+    }
+    
+    /** Resets every {@link AnimationMetrics} counter, not only the pose cache ones */
+    public static void resetPoseCacheStats() {
+        AnimationMetrics.reset();
+    }
 }
@@ -0,0 +1,74 @@
+package com.github.yyyumeniku.reanim.core;
+
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+/**
+ * One layer of an {@link AnimationController}'s stack, composited over the base animation.
+ *
+ * A layer has its own playback (animation, playhead, speed, transitions), a part mask
+ * limiting which parts it may write, and a weight. Layers are composited in priority
+ * order: the base animation sits at priority 0, layers with a lower priority go under
+ * it and layers with a higher priority on top. E.g. a walk cycle as the base, an
+ * emote masked to {@link PoseBuffer#MASK_HEAD} | {@link PoseBuffer#MASK_ARMS} at 100
+ * and a hit reaction over everything at 200.
+ *
+ * Layers are local to the side they are played on; only the base animation is synced
+ * and saved.
+ */
+public final class AnimationLayer {
+    
+    private final int priority;
+    final AnimationController playback;
+    int partMask = PoseBuffer.MASK_ALL;
+    float weight = 1.0f;
+    
+    AnimationLayer(int priority, AnimationController playback) {
+        this.priority = priority;
+        this.playback = playback;
+    }
+    
+    public int getPriority() {
+        return priority;
+    }
+    
+    /**
+     * Playback of this layer. Ticked and scheduled through the owning controller;
+     * its poses are only visible through the owner's composited pose.
+     */
+    public IAnimationController getPlayback() {
+        return playback;
+    }
+    
+    public int getPartMask() {
+        return partMask;
+    }
+    
+    /**
+     * Limit the parts this layer may write; parts outside the mask show the layers below.
+     * @param partMask See the {@code MASK_} constants of {@link PoseBuffer}
+     */
+    public AnimationLayer setPartMask(int partMask) {
+        this.partMask = partMask & PoseBuffer.MASK_ALL;
+        playback.layerChanged();
+        return this;
+    }
+    
+    public float getWeight() {
+        return weight;
+    }
+    
+    /**
+     * Opacity of the layer over the ones below it (0.0 to 1.0).
+     */
+    public AnimationLayer setWeight(float weight) {
+        this.weight = Math.max(0, Math.min(1, weight));
+        playback.layerChanged();
+        return this;
+    }
+    
+    /** Whether this layer contributes to the pose, including while fading out */
+    public boolean isActive() {
+        return playback.isPlaying() || playback.isTransitioning();
+    }
+}
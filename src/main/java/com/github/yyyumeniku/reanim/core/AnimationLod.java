@@ -0,0 +1,46 @@
+package com.github.yyyumeniku.reanim.core;
+
+import com.github.yyyumeniku.reanim.REanimConfig;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+/**
+ * Distance-based level of detail for animated entities.
+ *
+ * Band 0 is full detail. Each distance in {@link REanimConfig#lodBandDistances}
+ * starts the next band. In band {@code n > 0}:
+ * <ul>
+ *   <li>the pose is re-evaluated only every {@code 2^n} frames and reused in between</li>
+ *   <li>transitions snap instead of blending</li>
+ *   <li>only the body and arms are applied to the model</li>
+ * </ul>
+ */
+public final class AnimationLod {
+    
+    /** Parts still animated in the reduced bands */
+    public static final int REDUCED_MASK = PoseBuffer.MASK_BODY | PoseBuffer.MASK_RIGHT_ARM | PoseBuffer.MASK_LEFT_ARM;
+    
+    private AnimationLod() {}
+    
+    /**
+     * Get the detail band for a squared camera distance.
+     * @return 0 for full detail, higher for less detail
+     */
+    public static int bandOf(double distanceSq) {
+        double[] distances = REanimConfig.lodBandDistances;
+        int band = 0;
+        while (band < distances.length && distanceSq >= distances[band] * distances[band]) {
+            band++;
+        }
+        return band;
+    }
+    
+    /** Frames between pose evaluations in a band */
+    public static int frameInterval(int band) {
+        return 1 << Math.min(band, 8);
+    }
+    
+    /** Override mask of the parts applied in a band */
+    public static int partMask(int band) {
+        return band == 0 ? PoseBuffer.MASK_ALL : REDUCED_MASK;
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.yyyumeniku.reanim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.yyyumeniku.reanim.REanimConfig;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Runtime counters and timers, shown by {@code /reanim stats} and on the F3 screen.
+ *
+ * Counters are {@link LongAdder}s, so the render, server and Netty threads can bump
+ * them without contending. Pose evaluation time is recorded per animation into a
+ * log-scale histogram (four buckets per power of two), from which the mean and an
+ * upper bound of the p99 are read. Timing can be turned off with
+ * {@link REanimConfig#collectTimings}; the counters are always on.
+ *
+ * Values are per JVM: on an integrated server the command also sees the client's numbers.
+ */
+public final class AnimationMetrics {
+    
+    private static final LongAdder POSE_EVALUATIONS = new LongAdder();
+    private static final LongAdder POSE_CACHE_HITS = new LongAdder();
+    private static final LongAdder REGISTRY_LOOKUPS = new LongAdder();
+    private static final LongAdder REGISTRY_MISSES = new LongAdder();
+    private static final LongAdder PACKETS_SENT = new LongAdder();
+    private static final LongAdder BYTES_SENT = new LongAdder();
+    private static final LongAdder PACKETS_RECEIVED = new LongAdder();
+    private static final LongAdder BYTES_RECEIVED = new LongAdder();
+    // Gauge, not a counter: never reset
+    private static final LongAdder ACTIVE_CONTROLLERS = new LongAdder();
+    
+    private static final ConcurrentHashMap<ResourceLocation, Timer> TIMERS = new ConcurrentHashMap<>();
+    
+    // Render thread only
+    private static long evaluationsAtFrameStart;
+    private static int posesLastFrame;
+    
+    private AnimationMetrics() {}
+    
+    static void poseEvaluated() {
+        POSE_EVALUATIONS.increment();
+    }
+    
+    static void poseCacheHit() {
+        POSE_CACHE_HITS.increment();
+    }
+    
+    /** Count a registry lookup; {@code found} false counts a miss too */
+    public static void registryLookup(boolean found) {
+        REGISTRY_LOOKUPS.increment();
+        if (!found) {
+            REGISTRY_MISSES.increment();
+        }
+    }
+    
+    /** Count an encoded packet */
+    public static void packetSent(int bytes) {
+        PACKETS_SENT.increment();
+        BYTES_SENT.add(bytes);
+    }
+    
+    /** Count a decoded packet */
+    public static void packetReceived(int bytes) {
+        PACKETS_RECEIVED.increment();
+        BYTES_RECEIVED.add(bytes);
+    }
+    
+    /** Count a controller that started playing ({@code true}) or stopped, was released or discarded */
+    static void controllerActive(boolean active) {
+        if (active) {
+            ACTIVE_CONTROLLERS.increment();
+        } else {
+            ACTIVE_CONTROLLERS.decrement();
+        }
+    }
+    
+    /** Called at the start of every render frame to close the previous frame's count */
+    public static void onFrame() {
+        long total = POSE_EVALUATIONS.sum();
+        posesLastFrame = (int) (total - evaluationsAtFrameStart);
+        evaluationsAtFrameStart = total;
+    }
+    
+    /**
+     * Get the evaluation timer of an animation, creating it on first use.
+     * Controllers look it up once per animation start, not per frame.
+     */
+    public static Timer timer(ResourceLocation animationId) {
+        return TIMERS.computeIfAbsent(animationId, Timer::new);
+    }
+    
+    public static long getPoseEvaluations() {
+        return POSE_EVALUATIONS.sum();
+    }
+    
+    public static long getPoseCacheHits() {
+        return POSE_CACHE_HITS.sum();
+    }
+    
+    /** Poses evaluated during the last complete render frame */
+    public static int getPosesLastFrame() {
+        return posesLastFrame;
+    }
+    
+    public static long getRegistryLookups() {
+        return REGISTRY_LOOKUPS.sum();
+    }
+    
+    public static long getRegistryMisses() {
+        return REGISTRY_MISSES.sum();
+    }
+    
+    public static long getPacketsSent() {
+        return PACKETS_SENT.sum();
+    }
+    
+    public static long getBytesSent() {
+        return BYTES_SENT.sum();
+    }
+    
+    public static long getPacketsReceived() {
+        return PACKETS_RECEIVED.sum();
+    }
+    
+    public static long getBytesReceived() {
+        return BYTES_RECEIVED.sum();
+    }
+    
+    /**
+     * Controllers playing a base animation, whether or not they are scheduled.
+     * Scheduled controllers are counted off when their entity is removed; one that
+     * loops on the world clock unscheduled stays counted until it is stopped.
+     */
+    public static long getActiveControllers() {
+        return ACTIVE_CONTROLLERS.sum();
+    }
+    
+    /** Timers of every animation evaluated so far, slowest mean first */
+    public static List<Timer> getTimers() {
+        List<Timer> timers = new ArrayList<>(TIMERS.values());
+        timers.removeIf(timer -> timer.getCount() == 0);
+        timers.sort((a, b) -> Double.compare(b.getMeanNanos(), a.getMeanNanos()));
+        return timers;
+    }
+    
+    /** Zero every counter and timer; the active controller gauge is kept */
+    public static void reset() {
+        POSE_EVALUATIONS.reset();
+        POSE_CACHE_HITS.reset();
+        REGISTRY_LOOKUPS.reset();
+        REGISTRY_MISSES.reset();
+        PACKETS_SENT.reset();
+        BYTES_SENT.reset();
+        PACKETS_RECEIVED.reset();
+        BYTES_RECEIVED.reset();
+        for (Timer timer : TIMERS.values()) {
+            timer.reset();
+        }
+        evaluationsAtFrameStart = 0;
+    }
+    
+    /**
+     * Pose evaluation times of one animation.
+     */
+    public static final class Timer {
+        
+        // Four sub-buckets per power of two, up to 2^40 ns
+        private static final int SUB_BITS = 2;
+        private static final int MAX_LOG2 = 40;
+        private static final int BUCKETS = (MAX_LOG2 + 1) << SUB_BITS;
+        
+        private final ResourceLocation animationId;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        
+        private Timer(ResourceLocation animationId) {
+            this.animationId = animationId;
+        }
+        
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+        }
+        
+        public ResourceLocation getAnimationId() {
+            return animationId;
+        }
+        
+        public long getCount() {
+            return count.sum();
+        }
+        
+        public double getMeanNanos() {
+            long n = count.sum();
+            return n > 0 ? (double) totalNanos.sum() / n : 0;
+        }
+        
+        /**
+         * Upper bound of the bucket holding the 99th percentile; at most 25% above the true value.
+         */
+        public long getP99Nanos() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            if (total == 0) return 0;
+            
+            long target = total - total / 100;
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= target) {
+                    return upperBound(i);
+                }
+            }
+            return upperBound(BUCKETS - 1);
+        }
+        
+        void reset() {
+            count.reset();
+            totalNanos.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+        
+        private static int bucketOf(long nanos) {
+            if (nanos < (1 << SUB_BITS)) {
+                return (int) Math.max(0, nanos);
+            }
+            int log2 = 63 - Long.numberOfLeadingZeros(nanos);
+            if (log2 > MAX_LOG2) return BUCKETS - 1;
+            int sub = (int) (nanos >>> (log2 - SUB_BITS)) & ((1 << SUB_BITS) - 1);
+            return (log2 << SUB_BITS) | sub;
+        }
+        
+        private static long upperBound(int bucket) {
+            int log2 = bucket >>> SUB_BITS;
+            if (log2 < SUB_BITS) return bucket + 1;
+            long sub = bucket & ((1 << SUB_BITS) - 1);
+            return ((1L << SUB_BITS) + sub + 1) << (log2 - SUB_BITS);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.github.yyyumeniku.reanim.core;
+
+import java.util.Arrays;
+
+import javax.annotation.Nullable;
+
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.world.World;
+
+/**
+ * Ticks every animating controller of one side in a single loop.
+ *
+ * Controllers add themselves when they start an animation or transition and are
+ * dropped again once they go idle, so the cost per tick scales with the number of
+ * animating entities rather than the number of entities with the capability.
+ * Lazily created mob controllers stay a little longer while they count down to
+ * their release.
+ * The active set is a dense array; removal swaps the last entry into the hole.
+ *
+ * There is one scheduler per logical side, and each is only used from that
+ * side's main thread.
+ */
+public final class AnimationTickScheduler {
+    
+    public static final AnimationTickScheduler CLIENT = new AnimationTickScheduler();
+    public static final AnimationTickScheduler SERVER = new AnimationTickScheduler();
+    
+    private AnimationController[] active = new AnimationController[16];
+    private int size;
+    
+    public AnimationTickScheduler() {}
+    
+    /**
+     * Get the scheduler for the side an entity lives on.
+     * @return The scheduler, or null if the entity has no world yet
+     */
+    @Nullable
+    public static AnimationTickScheduler forEntity(@Nullable EntityLivingBase entity) {
+        if (entity == null || entity.world == null) return null;
+        return entity.world.isRemote ? CLIENT : SERVER;
+    }
+    
+    /**
+     * Add a controller to the active set. Does nothing if it is already scheduled.
+     */
+    void schedule(AnimationController controller) {
+        if (controller.schedulerSlot >= 0) return;
+        
+        if (size == active.length) {
+            active = Arrays.copyOf(active, size * 2);
+        }
+        controller.schedulerSlot = size;
+        active[size++] = controller;
+    }
+    
+    /**
+     * Advance every active controller by one tick, dropping the ones that went idle
+     * or whose entity was removed.
+     */
+    public void tick() {
+        int i = 0;
+        while (i < size) {
+            AnimationController controller = active[i];
+            if (isRemoved(controller.getOwner())) {
+                controller.discarded();
+                remove(i);
+                continue;
+            }
+            
+            controller.tick();
+            if (!controller.needsTick() && controller.tickIdle()) {
+                // The last entry is swapped into slot i and still needs its tick
+                remove(i);
+                continue;
+            }
+            i++;
+        }
+    }
+    
+    /**
+     * Drop every controller whose entity belongs to a world that is unloading.
+     */
+    public void removeWorld(World world) {
+        int i = 0;
+        while (i < size) {
+            EntityLivingBase owner = active[i].getOwner();
+            if (owner != null && owner.world == world) {
+                active[i].discarded();
+                remove(i);
+                continue;
+            }
+            i++;
+        }
+    }
+    
+    /** Drop every controller */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            active[i].schedulerSlot = -1;
+            active[i] = null;
+        }
+        size = 0;
+    }
+    
+    /** Number of controllers currently being ticked */
+    public int size() {
+        return size;
+    }
+    
+    /** Number of scheduled controllers blending a transition; walks the active set */
+    public int countTransitions() {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (active[i].isTransitioning()) count++;
+        }
+        return count;
+    }
+    
+    private void remove(int index) {
+        active[index].schedulerSlot = -1;
+        size--;
+        if (index != size) {
+            active[index] = active[size];
+            active[index].schedulerSlot = index;
+        }
+        active[size] = null;
+    }
+    
+    private static boolean isRemoved(@Nullable EntityLivingBase owner) {
+        // Entities in unloaded chunks are not marked dead, only removed from the world
+        return owner != null && (owner.isDead || (owner.ticksExisted > 0 && !owner.isAddedToWorld()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.yyyumeniku.reanim.core;
+
+/**
+ * Render frame counter used to memoize per-frame work.
+ * Advanced once per frame on the client render thread; stays at 0 elsewhere,
+ * which disables frame-keyed caching.
+ */
+public final class FrameClock {
+    
+    private static int frame;
+    
+    private FrameClock() {}
+    
+    /** Current frame number, or 0 if no frame has started yet */
+    public static int currentFrame() {
+        return frame;
+    }
+    
+    /** Called at the start of every render frame */
+    public static void advance() {
+        frame++;
+        if (frame == 0) {
+            // Skip 0 on wrap-around, it means "no frame clock"
+            frame = 1;
+        }
+    }
+}
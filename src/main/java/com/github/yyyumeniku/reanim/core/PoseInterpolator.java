@@ -1,11 +1,15 @@
 package com.github.yyyumeniku.reanim.core;
 
+import com.github.yyyumeniku.reanim.api.Easing;
 import com.github.yyyumeniku.reanim.api.IPose;
-import com.github.yyyumeniku.reanim.api.PoseBuilder;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
 
 /**
  * Utility class for interpolating between poses.
  * Used for smooth transitions between animations.
+ *
+ * The {@code ...Into} style overloads write into a caller-owned {@link PoseBuffer}
+ * and allocate nothing; prefer them in per-frame code.
  */
 public final class PoseInterpolator {
     
@@ -24,74 +28,172 @@ public final class PoseInterpolator {
         if (progress <= 0) return from;
         if (progress >= 1) return to;
         
-        float inv = 1.0f - progress;
+        return interpolateInto(from, to, progress, new PoseBuffer());
+    }
+    
+    /**
+     * Linearly interpolate between two poses into a destination buffer.
+     * Override flags are taken from {@code to}. {@code out} may alias either input.
+     * If one side is null the other is copied.
+     * @param from Starting pose
+     * @param to Target pose
+     * @param progress 0.0 = from, 1.0 = to
+     * @param out Destination buffer
+     * @return {@code out}
+     */
+    public static PoseBuffer interpolateInto(IPose from, IPose to, float progress, PoseBuffer out) {
+        if (from == null) return out.set(to);
+        if (to == null) return out.set(from);
+        if (progress <= 0) return out.set(from);
+        if (progress >= 1) return out.set(to);
+        
+        if (to instanceof PoseBuffer) {
+            if (from instanceof PoseBuffer) {
+                return out.lerp((PoseBuffer) from, (PoseBuffer) to, progress);
+            }
+            // Blend backwards from the target so out may alias it
+            int mask = ((PoseBuffer) to).getOverrideMask();
+            out.set((PoseBuffer) to);
+            blendToward(out, from, 1.0f - progress);
+            return out.setOverrideMask(mask);
+        }
         
-        return PoseBuilder.create()
-            .head(
-                from.getHeadRotateX() * inv + to.getHeadRotateX() * progress,
-                from.getHeadRotateY() * inv + to.getHeadRotateY() * progress,
-                from.getHeadRotateZ() * inv + to.getHeadRotateZ() * progress
-            )
-            .rightArm(
-                from.getRightArmRotateX() * inv + to.getRightArmRotateX() * progress,
-                from.getRightArmRotateY() * inv + to.getRightArmRotateY() * progress,
-                from.getRightArmRotateZ() * inv + to.getRightArmRotateZ() * progress
-            )
-            .leftArm(
-                from.getLeftArmRotateX() * inv + to.getLeftArmRotateX() * progress,
-                from.getLeftArmRotateY() * inv + to.getLeftArmRotateY() * progress,
-                from.getLeftArmRotateZ() * inv + to.getLeftArmRotateZ() * progress
-            )
-            .rightLeg(
-                from.getRightLegRotateX() * inv + to.getRightLegRotateX() * progress,
-                from.getRightLegRotateY() * inv + to.getRightLegRotateY() * progress,
-                from.getRightLegRotateZ() * inv + to.getRightLegRotateZ() * progress
-            )
-            .leftLeg(
-                from.getLeftLegRotateX() * inv + to.getLeftLegRotateX() * progress,
-                from.getLeftLegRotateY() * inv + to.getLeftLegRotateY() * progress,
-                from.getLeftLegRotateZ() * inv + to.getLeftLegRotateZ() * progress
-            )
-            .body(
-                from.getBodyRotateX() * inv + to.getBodyRotateX() * progress,
-                from.getBodyRotateY() * inv + to.getBodyRotateY() * progress,
-                from.getBodyRotateZ() * inv + to.getBodyRotateZ() * progress
-            )
-            .overrideHead(to.overridesHead())
-            .overrideRightArm(to.overridesRightArm())
-            .overrideLeftArm(to.overridesLeftArm())
-            .overrideRightLeg(to.overridesRightLeg())
-            .overrideLeftLeg(to.overridesLeftLeg())
-            .overrideBody(to.overridesBody())
-            .build();
+        out.set(from);
+        blendToward(out, to, progress);
+        return out.setOverrideMask(PoseBuffer.overrideMaskOf(to));
+    }
+    
+    /**
+     * Linearly interpolate between two pose buffers, channel by channel.
+     * Override flags are taken from {@code to}. {@code out} may alias either input.
+     * If one side is null the other is copied.
+     * @param from Starting pose
+     * @param to Target pose
+     * @param progress 0.0 = from, 1.0 = to
+     * @param out Destination buffer
+     * @return {@code out}
+     */
+    public static PoseBuffer interpolateInto(PoseBuffer from, PoseBuffer to, float progress, PoseBuffer out) {
+        if (from == null) return out.set(to);
+        if (to == null) return out.set(from);
+        if (progress <= 0) return out.set(from);
+        if (progress >= 1) return out.set(to);
+        return out.lerp(from, to, progress);
+    }
+    
+    /**
+     * Interpolate along an easing curve into a destination buffer.
+     * Unlike the linear overloads this does not clamp, so overshooting curves
+     * ({@link Easing#BACK_OUT}, {@link Easing#ELASTIC_OUT}) extrapolate past the ends.
+     * If one side is null the other is copied.
+     * @param progress Linear progress, 0.0 to 1.0
+     * @return {@code out}
+     */
+    public static PoseBuffer interpolateInto(PoseBuffer from, PoseBuffer to, float progress, Easing easing, PoseBuffer out) {
+        if (from == null) return out.set(to);
+        if (to == null) return out.set(from);
+        if (progress <= 0) return out.set(from);
+        if (progress >= 1) return out.set(to);
+        return out.lerp(from, to, easing.apply(progress));
     }
     
     /**
      * Ease-in interpolation (starts slow, ends fast).
      */
     public static IPose easeIn(IPose from, IPose to, float progress) {
-        float easedProgress = progress * progress;
-        return interpolate(from, to, easedProgress);
+        return interpolate(from, to, easeIn(progress));
+    }
+    
+    /**
+     * Ease-in interpolation into a destination buffer.
+     * @return {@code out}
+     */
+    public static PoseBuffer easeIn(IPose from, IPose to, float progress, PoseBuffer out) {
+        return interpolateInto(from, to, easeIn(progress), out);
     }
     
     /**
      * Ease-out interpolation (starts fast, ends slow).
      */
     public static IPose easeOut(IPose from, IPose to, float progress) {
-        float easedProgress = 1.0f - (1.0f - progress) * (1.0f - progress);
-        return interpolate(from, to, easedProgress);
+        return interpolate(from, to, easeOut(progress));
+    }
+    
+    /**
+     * Ease-out interpolation into a destination buffer.
+     * @return {@code out}
+     */
+    public static PoseBuffer easeOut(IPose from, IPose to, float progress, PoseBuffer out) {
+        return interpolateInto(from, to, easeOut(progress), out);
     }
     
     /**
      * Ease-in-out interpolation (smooth start and end).
      */
     public static IPose easeInOut(IPose from, IPose to, float progress) {
-        float easedProgress;
-        if (progress < 0.5f) {
-            easedProgress = 2.0f * progress * progress;
-        } else {
-            easedProgress = 1.0f - (float) Math.pow(-2.0f * progress + 2.0f, 2) / 2.0f;
-        }
-        return interpolate(from, to, easedProgress);
+        return interpolate(from, to, easeInOut(progress));
+    }
+    
+    /**
+     * Ease-in-out interpolation into a destination buffer.
+     * @return {@code out}
+     */
+    public static PoseBuffer easeInOut(IPose from, IPose to, float progress, PoseBuffer out) {
+        return interpolateInto(from, to, easeInOut(progress), out);
+    }
+    
+    private static float easeIn(float progress) {
+        return Easing.QUAD_IN.apply(progress);
+    }
+    
+    private static float easeOut(float progress) {
+        return Easing.QUAD_OUT.apply(progress);
+    }
+    
+    private static float easeInOut(float progress) {
+        return Easing.QUAD_IN_OUT.apply(progress);
+    }
+    
+    /**
+     * Move every channel of {@code out} toward {@code target} by {@code t}.
+     */
+    private static void blendToward(PoseBuffer out, IPose target, float t) {
+        float[] c = out.channels();
+        c[0] += (target.getHeadRotateX() - c[0]) * t;
+        c[1] += (target.getHeadRotateY() - c[1]) * t;
+        c[2] += (target.getHeadRotateZ() - c[2]) * t;
+        c[3] += (target.getRightArmRotateX() - c[3]) * t;
+        c[4] += (target.getRightArmRotateY() - c[4]) * t;
+        c[5] += (target.getRightArmRotateZ() - c[5]) * t;
+        c[6] += (target.getLeftArmRotateX() - c[6]) * t;
+        c[7] += (target.getLeftArmRotateY() - c[7]) * t;
+        c[8] += (target.getLeftArmRotateZ() - c[8]) * t;
+        c[9] += (target.getRightLegRotateX() - c[9]) * t;
+        c[10] += (target.getRightLegRotateY() - c[10]) * t;
+        c[11] += (target.getRightLegRotateZ() - c[11]) * t;
+        c[12] += (target.getLeftLegRotateX() - c[12]) * t;
+        c[13] += (target.getLeftLegRotateY() - c[13]) * t;
+        c[14] += (target.getLeftLegRotateZ() - c[14]) * t;
+        c[15] += (target.getBodyRotateX() - c[15]) * t;
+        c[16] += (target.getBodyRotateY() - c[16]) * t;
+        c[17] += (target.getBodyRotateZ() - c[17]) * t;
+        c[18] += (target.getHeadOffsetX() - c[18]) * t;
+        c[19] += (target.getHeadOffsetY() - c[19]) * t;
+        c[20] += (target.getHeadOffsetZ() - c[20]) * t;
+        c[21] += (target.getRightArmOffsetX() - c[21]) * t;
+        c[22] += (target.getRightArmOffsetY() - c[22]) * t;
+        c[23] += (target.getRightArmOffsetZ() - c[23]) * t;
+        c[24] += (target.getLeftArmOffsetX() - c[24]) * t;
+        c[25] += (target.getLeftArmOffsetY() - c[25]) * t;
+        c[26] += (target.getLeftArmOffsetZ() - c[26]) * t;
+        c[27] += (target.getRightLegOffsetX() - c[27]) * t;
+        c[28] += (target.getRightLegOffsetY() - c[28]) * t;
+        c[29] += (target.getRightLegOffsetZ() - c[29]) * t;
+        c[30] += (target.getLeftLegOffsetX() - c[30]) * t;
+        c[31] += (target.getLeftLegOffsetY() - c[31]) * t;
+        c[32] += (target.getLeftLegOffsetZ() - c[32]) * t;
+        c[33] += (target.getBodyOffsetX() - c[33]) * t;
+        c[34] += (target.getBodyOffsetY() - c[34]) * t;
+        c[35] += (target.getBodyOffsetZ() - c[35]) * t;
     }
 }
@@ -0,0 +1,145 @@
+package com.github.yyyumeniku.reanim.format;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.yyyumeniku.reanim.animation.KeyframeAnimation;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Build-time converter from the human-readable JSON form to .reanim containers.
+ * Each JSON file becomes one .reanim file holding all of its animations.
+ * 
+ * JSON form (a single animation object, or {@code {"animations": [...]}}):
+ * <pre>{@code
+ * {
+ *   "id": "mymod:wave",
+ *   "duration": 20,
+ *   "looping": true,
+ *   "priority": 0,
+ *   "speed": 1.0,
+ *   "transition_in": 5,
+ *   "transition_out": 5,
+ *   "degrees": true,
+ *   "tracks": {
+ *     "right_arm.rotate_x": [[0, -160], [20, -160]],
+ *     "right_arm.rotate_z": [[0, 15], [10, -15], [20, 15]]
+ *   }
+ * }
+ * }</pre>
+ * Channel names are {@code <part>.rotate_<axis>} or {@code <part>.offset_<axis>}, with parts
+ * head, right_arm, left_arm, right_leg, left_leg and body. Keys are {@code [tick, value]}.
+ * With {@code "degrees": true} rotation values are converted to radians.
+ * 
+ * Usage: {@code ReanimCompiler <input dir> <output dir>}
+ */
+public final class ReanimCompiler {
+    
+    private ReanimCompiler() {}
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ReanimCompiler <input dir> <output dir>");
+            System.exit(1);
+        }
+        Path input = Paths.get(args[0]);
+        Path output = Paths.get(args[1]);
+        
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(input)) {
+            sources = files.filter(path -> path.toString().endsWith(".json")).collect(Collectors.toList());
+        }
+        
+        for (Path source : sources) {
+            String relative = input.relativize(source).toString();
+            Path target = output.resolve(relative.substring(0, relative.length() - 5) + ReanimFormat.EXTENSION);
+            int count = compile(source, target);
+            System.out.println("Compiled " + count + " animations: " + source + " -> " + target);
+        }
+    }
+    
+    /**
+     * Compile one JSON file into a .reanim file.
+     * @return Number of animations written
+     */
+    public static int compile(Path source, Path target) throws IOException {
+        List<KeyframeAnimation> animations;
+        try (Reader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            animations = parse(new JsonParser().parse(reader));
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new IOException("Invalid animation file " + source + ": " + e.getMessage(), e);
+        }
+        
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try (OutputStream out = Files.newOutputStream(target)) {
+            ReanimWriter.write(animations, out);
+        }
+        return animations.size();
+    }
+    
+    /**
+     * Parse the JSON form into keyframe animations.
+     */
+    public static List<KeyframeAnimation> parse(JsonElement root) {
+        List<KeyframeAnimation> animations = new ArrayList<>();
+        JsonObject object = root.getAsJsonObject();
+        if (object.has("animations")) {
+            for (JsonElement element : object.getAsJsonArray("animations")) {
+                animations.add(parseAnimation(element.getAsJsonObject()));
+            }
+        } else {
+            animations.add(parseAnimation(object));
+        }
+        return animations;
+    }
+    
+    private static KeyframeAnimation parseAnimation(JsonObject json) {
+        if (!json.has("id") || !json.has("duration")) {
+            throw new IllegalArgumentException("Animation needs \"id\" and \"duration\"");
+        }
+        ResourceLocation id = new ResourceLocation(json.get("id").getAsString());
+        boolean degrees = json.has("degrees") && json.get("degrees").getAsBoolean();
+        
+        KeyframeAnimation.Builder builder = KeyframeAnimation.builder(id, json.get("duration").getAsInt());
+        if (json.has("looping")) builder.looping(json.get("looping").getAsBoolean());
+        if (json.has("priority")) builder.priority(json.get("priority").getAsInt());
+        if (json.has("speed")) builder.speed(json.get("speed").getAsFloat());
+        if (json.has("transition_in")) builder.transitionIn(json.get("transition_in").getAsInt());
+        if (json.has("transition_out")) builder.transitionOut(json.get("transition_out").getAsInt());
+        
+        if (json.has("tracks")) {
+            for (Map.Entry<String, JsonElement> track : json.getAsJsonObject("tracks").entrySet()) {
+                int channel = ReanimFormat.parseChannel(track.getKey());
+                if (channel < 0) {
+                    throw new IllegalArgumentException("Unknown channel \"" + track.getKey() + "\" in " + id);
+                }
+                boolean convert = degrees && ReanimFormat.isRotation(channel);
+                
+                for (JsonElement element : track.getValue().getAsJsonArray()) {
+                    JsonArray key = element.getAsJsonArray();
+                    float value = key.get(1).getAsFloat();
+                    builder.key(channel, key.get(0).getAsFloat(), convert ? (float) Math.toRadians(value) : value);
+                }
+            }
+        }
+        return builder.build();
+    }
+}
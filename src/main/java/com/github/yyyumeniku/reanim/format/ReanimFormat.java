@@ -0,0 +1,84 @@
+package com.github.yyyumeniku.reanim.format;
+
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+
+/**
+ * Constants and channel naming for the compiled .reanim container.
+ * 
+ * All values are big-endian. Layout:
+ * <pre>
+ * Header
+ *   int    magic            'RNIM'
+ *   short  version
+ *   short  flags            reserved, 0
+ *   int    animationCount
+ * Index (one entry per animation, read eagerly)
+ *   short  idLength, byte[idLength] id (UTF-8)
+ *   int    durationTicks
+ *   byte   flags            bit 0 = looping
+ *   int    priority
+ *   float  speed
+ *   short  transitionInTicks
+ *   short  transitionOutTicks
+ *   int    trackCount
+ *   int    keyCount
+ *   int    dataOffset       absolute offset of the data block
+ * Data block (one per animation, decoded lazily)
+ *   byte[trackCount]  channel index of each track
+ *   int[trackCount]   key count of each track
+ *   float[keyCount]   key times in ticks, track by track
+ *   float[keyCount]   key values, track by track
+ * </pre>
+ */
+public final class ReanimFormat {
+    
+    public static final int MAGIC = 0x524E494D;
+    public static final short VERSION = 1;
+    public static final String EXTENSION = ".reanim";
+    
+    public static final int FLAG_LOOPING = 1;
+    
+    /** Part names used by the JSON source form, indexed like {@link PoseBuffer} parts */
+    private static final String[] PART_NAMES = {"head", "right_arm", "left_arm", "right_leg", "left_leg", "body"};
+    private static final String[] AXIS_NAMES = {"x", "y", "z"};
+    
+    private ReanimFormat() {}
+    
+    /**
+     * Parse a channel name such as {@code right_arm.rotate_x} or {@code body.offset_y}.
+     * @return The channel index, or -1 if the name is unknown
+     */
+    public static int parseChannel(String name) {
+        int dot = name.indexOf('.');
+        int underscore = name.lastIndexOf('_');
+        if (dot < 0 || underscore < dot) return -1;
+        
+        int part = indexOf(PART_NAMES, name.substring(0, dot));
+        int axis = indexOf(AXIS_NAMES, name.substring(underscore + 1));
+        if (part < 0 || axis < 0) return -1;
+        
+        String kind = name.substring(dot + 1, underscore);
+        if (kind.equals("rotate")) return PoseBuffer.rotation(part, axis);
+        if (kind.equals("offset")) return PoseBuffer.offset(part, axis);
+        return -1;
+    }
+    
+    /** Inverse of {@link #parseChannel(String)} */
+    public static String channelName(int channel) {
+        boolean offset = channel >= PoseBuffer.OFFSET_BASE;
+        int index = offset ? channel - PoseBuffer.OFFSET_BASE : channel;
+        return PART_NAMES[index / 3] + (offset ? ".offset_" : ".rotate_") + AXIS_NAMES[index % 3];
+    }
+    
+    /** Whether a channel holds a rotation (as opposed to an offset) */
+    public static boolean isRotation(int channel) {
+        return channel < PoseBuffer.OFFSET_BASE;
+    }
+    
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+}
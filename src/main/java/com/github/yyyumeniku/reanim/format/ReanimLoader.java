@@ -0,0 +1,210 @@
+package com.github.yyyumeniku.reanim.format;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import com.github.yyyumeniku.reanim.REanim;
+import com.github.yyyumeniku.reanim.animation.KeyframeAnimation;
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Loads compiled .reanim containers.
+ * 
+ * Files are memory-mapped and only the index is read up front. Each animation
+ * is registered lazily and its tracks are decoded from the mapping on the first
+ * {@link AnimationRegistry#get}, so hundreds of emotes cost almost nothing at startup.
+ */
+public final class ReanimLoader {
+    
+    // magic, version, flags, animationCount
+    private static final int HEADER_SIZE = 12;
+    // Index entry without its ID bytes: idLength and the fixed fields
+    private static final int ENTRY_SIZE = 2 + 4 + 1 + 4 + 4 + 2 + 2 + 4 + 4 + 4;
+    
+    private ReanimLoader() {}
+    
+    /**
+     * Load every .reanim file in a directory. A file that cannot be read or is
+     * corrupt is logged and skipped; the others still load.
+     * @param directory Directory to scan (missing directories are ignored)
+     * @return Number of animations registered
+     */
+    public static int loadDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + ReanimFormat.EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    count += load(file);
+                } catch (IOException | IllegalArgumentException e) {
+                    REanim.LOGGER.error("Failed to load compiled animations from {}", file, e);
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Memory-map a .reanim file and register its animations lazily.
+     * @param file The file to load
+     * @return Number of animations registered
+     * @throws IllegalArgumentException if the file is not a valid container
+     */
+    public static int load(Path file) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int count = load(buffer);
+        REanim.LOGGER.debug("Loaded {} animations from {}", count, file);
+        return count;
+    }
+    
+    /**
+     * Register the animations of a .reanim container held in a buffer
+     * (e.g. read from a jar resource, which cannot be mapped).
+     * 
+     * The whole index is checked against the buffer before anything is registered,
+     * so a truncated or corrupt container registers nothing. Animations whose ID is
+     * already registered are skipped with a warning.
+     * @param buffer Buffer from the start of the container (its position) to the end (its limit); not modified
+     * @return Number of animations registered
+     * @throws IllegalArgumentException if the buffer is not a valid container
+     */
+    public static int load(ByteBuffer buffer) {
+        // Offsets in the container are relative to its start, wherever the buffer is positioned
+        ByteBuffer container = buffer.slice();
+        ByteBuffer index = container.duplicate();
+        require(index, HEADER_SIZE, "header");
+        if (index.getInt() != ReanimFormat.MAGIC) {
+            throw new IllegalArgumentException("Not a .reanim file");
+        }
+        short version = index.getShort();
+        if (version != ReanimFormat.VERSION) {
+            throw new IllegalArgumentException("Unsupported .reanim version: " + version);
+        }
+        index.getShort();
+        
+        int count = index.getInt();
+        // Every entry takes at least its fixed fields, which bounds the count before allocating
+        if (count < 0 || count > index.remaining() / ENTRY_SIZE) {
+            throw new IllegalArgumentException("Invalid animation count: " + count);
+        }
+        
+        IndexEntry[] entries = new IndexEntry[count];
+        for (int i = 0; i < count; i++) {
+            require(index, 2, "index entry " + i);
+            byte[] idBytes = new byte[index.getShort() & 0xFFFF];
+            require(index, idBytes.length + ENTRY_SIZE - 2, "index entry " + i);
+            index.get(idBytes);
+            
+            IndexEntry entry = new IndexEntry(parseId(idBytes));
+            entry.durationTicks = index.getInt();
+            entry.looping = (index.get() & ReanimFormat.FLAG_LOOPING) != 0;
+            entry.priority = index.getInt();
+            entry.speed = index.getFloat();
+            entry.transitionIn = index.getShort();
+            entry.transitionOut = index.getShort();
+            entry.trackCount = index.getInt();
+            entry.keyCount = index.getInt();
+            entry.dataOffset = index.getInt();
+            
+            // Track channels (1 byte) and key counts (4), then times and values (4 + 4 per key)
+            long dataSize = entry.trackCount * 5L + entry.keyCount * 8L;
+            if (entry.trackCount < 0 || entry.keyCount < 0 || entry.dataOffset < 0
+                    || entry.dataOffset + dataSize > container.limit()) {
+                throw new IllegalArgumentException("Data of " + entry.id + " is outside the file");
+            }
+            entries[i] = entry;
+        }
+        
+        int registered = 0;
+        for (IndexEntry entry : entries) {
+            if (AnimationRegistry.isRegistered(entry.id)) {
+                REanim.LOGGER.warn("Skipping duplicate animation {}", entry.id);
+                continue;
+            }
+            AnimationRegistry.registerLazy(entry.id, () -> {
+                try {
+                    return decode(container, entry);
+                } catch (RuntimeException e) {
+                    REanim.LOGGER.error("Corrupt animation data for {}", entry.id, e);
+                    return null;
+                }
+            });
+            registered++;
+        }
+        return registered;
+    }
+    
+    private static void require(ByteBuffer buffer, int bytes, String what) {
+        if (buffer.remaining() < bytes) {
+            throw new IllegalArgumentException("Truncated .reanim file: " + what + " is incomplete");
+        }
+    }
+    
+    private static ResourceLocation parseId(byte[] idBytes) {
+        String id = new String(idBytes, StandardCharsets.UTF_8);
+        try {
+            return new ResourceLocation(id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid animation ID: " + id, e);
+        }
+    }
+    
+    private static KeyframeAnimation decode(ByteBuffer buffer, IndexEntry entry) {
+        // Own position per decode, so lazy loads are safe from any thread
+        ByteBuffer data = buffer.duplicate();
+        data.position(entry.dataOffset);
+        
+        int trackCount = entry.trackCount;
+        int keyCount = entry.keyCount;
+        int[] trackChannels = new int[trackCount];
+        for (int track = 0; track < trackCount; track++) {
+            trackChannels[track] = data.get() & 0xFF;
+        }
+        int[] trackStarts = new int[trackCount + 1];
+        for (int track = 0; track < trackCount; track++) {
+            trackStarts[track + 1] = trackStarts[track] + data.getInt();
+        }
+        
+        float[] times = new float[keyCount];
+        float[] values = new float[keyCount];
+        data.asFloatBuffer().get(times);
+        data.position(data.position() + keyCount * 4);
+        data.asFloatBuffer().get(values);
+        
+        return new KeyframeAnimation(
+            entry.id, entry.durationTicks, entry.looping, entry.priority, entry.speed,
+            entry.transitionIn, entry.transitionOut, trackChannels, trackStarts, times, values);
+    }
+    
+    /** One animation of the index; decoded into a {@link KeyframeAnimation} on first use */
+    private static final class IndexEntry {
+        final ResourceLocation id;
+        int durationTicks;
+        boolean looping;
+        int priority;
+        float speed;
+        int transitionIn;
+        int transitionOut;
+        int trackCount;
+        int keyCount;
+        int dataOffset;
+        
+        IndexEntry(ResourceLocation id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.yyyumeniku.reanim.format;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.github.yyyumeniku.reanim.animation.KeyframeAnimation;
+
+/**
+ * Writes keyframe animations into a .reanim container.
+ * See {@link ReanimFormat} for the layout.
+ */
+public final class ReanimWriter {
+    
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_FIXED_SIZE = 2 + 4 + 1 + 4 + 4 + 2 + 2 + 4 + 4 + 4;
+    
+    private ReanimWriter() {}
+    
+    public static void write(List<KeyframeAnimation> animations, OutputStream stream) throws IOException {
+        byte[][] ids = new byte[animations.size()][];
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < animations.size(); i++) {
+            ids[i] = animations.get(i).getId().toString().getBytes(StandardCharsets.UTF_8);
+            offset += INDEX_FIXED_SIZE + ids[i].length;
+        }
+        
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(ReanimFormat.MAGIC);
+        out.writeShort(ReanimFormat.VERSION);
+        out.writeShort(0);
+        out.writeInt(animations.size());
+        
+        // Index
+        for (int i = 0; i < animations.size(); i++) {
+            KeyframeAnimation animation = animations.get(i);
+            out.writeShort(ids[i].length);
+            out.write(ids[i]);
+            out.writeInt(animation.getDurationTicks());
+            out.writeByte(animation.isLooping() ? ReanimFormat.FLAG_LOOPING : 0);
+            out.writeInt(animation.getPriority());
+            out.writeFloat(animation.getSpeed());
+            out.writeShort(animation.getTransitionInTicks());
+            out.writeShort(animation.getTransitionOutTicks());
+            out.writeInt(animation.getTrackCount());
+            out.writeInt(animation.getKeyCount());
+            out.writeInt(offset);
+            offset += dataSize(animation);
+        }
+        
+        // Data blocks
+        for (KeyframeAnimation animation : animations) {
+            int tracks = animation.getTrackCount();
+            int keys = animation.getKeyCount();
+            for (int track = 0; track < tracks; track++) {
+                out.writeByte(animation.getTrackChannel(track));
+            }
+            for (int track = 0; track < tracks; track++) {
+                out.writeInt(animation.getTrackKeyCount(track));
+            }
+            for (int key = 0; key < keys; key++) {
+                out.writeFloat(animation.getKeyTime(key));
+            }
+            for (int key = 0; key < keys; key++) {
+                out.writeFloat(animation.getKeyValue(key));
+            }
+        }
+        out.flush();
+    }
+    
+    private static int dataSize(KeyframeAnimation animation) {
+        return animation.getTrackCount() * 5 + animation.getKeyCount() * 8;
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.yyyumeniku.reanim.mixin;
+
+import javax.annotation.Nullable;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+import com.github.yyyumeniku.reanim.api.IAnimatedEntity;
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+
+import net.minecraft.entity.EntityLivingBase;
+
+/**
+ * Adds a cached animation controller field to every living entity.
+ */
+@Mixin(EntityLivingBase.class)
+public abstract class MixinEntityLivingBase implements IAnimatedEntity {
+    
+    @Unique
+    @Nullable
+    private IAnimationController reanim$controller;
+    
+    @Override
+    @Nullable
+    public IAnimationController reanim$getController() {
+        return reanim$controller;
+    }
+    
+    @Override
+    public void reanim$setController(@Nullable IAnimationController controller) {
+        this.reanim$controller = controller;
+    }
+}
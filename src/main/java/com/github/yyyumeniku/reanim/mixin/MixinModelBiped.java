@@ -8,7 +8,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import com.github.yyyumeniku.reanim.api.AnimationAPI;
 import com.github.yyyumeniku.reanim.api.IAnimationController;
-import com.github.yyyumeniku.reanim.api.IPose;
+import com.github.yyyumeniku.reanim.api.PoseBuffer;
+import com.github.yyyumeniku.reanim.core.AnimationLod;
 
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.model.ModelBiped;
@@ -56,56 +57,72 @@ public abstract class MixinModelBiped {
         EntityLivingBase living = (EntityLivingBase) entityIn;
         IAnimationController controller = AnimationAPI.getController(living);
         
-        if (controller == null || !controller.isPlaying()) {
+        if (controller == null) {
             return;
         }
         
-        float partialTicks = Minecraft.getMinecraft().getRenderPartialTicks();
-        IPose pose = controller.getCurrentPose(partialTicks);
+        Minecraft mc = Minecraft.getMinecraft();
+        float partialTicks = mc.getRenderPartialTicks();
+        Entity camera = mc.getRenderViewEntity();
+        double distanceSq = camera != null ? living.getDistanceSq(camera) : 0;
+        PoseBuffer pose = controller.getCurrentPoseBuffer(partialTicks, distanceSq);
         
         if (pose == null) {
             return;
         }
         
-        // Apply pose to model
-        if (pose.overridesHead()) {
-            bipedHead.rotateAngleX = pose.getHeadRotateX();
-            bipedHead.rotateAngleY = pose.getHeadRotateY();
-            bipedHead.rotateAngleZ = pose.getHeadRotateZ();
+        // Apply pose to model; far entities only get the major parts
+        int mask = pose.getOverrideMask() & AnimationLod.partMask(controller.getLodBand());
+        
+        if ((mask & PoseBuffer.MASK_HEAD) != 0) {
+            reanim$applyRotation(bipedHead, pose, PoseBuffer.PART_HEAD);
             // Copy to headwear
             bipedHeadwear.rotateAngleX = bipedHead.rotateAngleX;
             bipedHeadwear.rotateAngleY = bipedHead.rotateAngleY;
             bipedHeadwear.rotateAngleZ = bipedHead.rotateAngleZ;
         }
         
-        if (pose.overridesRightArm()) {
-            bipedRightArm.rotateAngleX = pose.getRightArmRotateX();
-            bipedRightArm.rotateAngleY = pose.getRightArmRotateY();
-            bipedRightArm.rotateAngleZ = pose.getRightArmRotateZ();
+        if ((mask & PoseBuffer.MASK_RIGHT_ARM) != 0) {
+            reanim$applyRotation(bipedRightArm, pose, PoseBuffer.PART_RIGHT_ARM);
         }
         
-        if (pose.overridesLeftArm()) {
-            bipedLeftArm.rotateAngleX = pose.getLeftArmRotateX();
-            bipedLeftArm.rotateAngleY = pose.getLeftArmRotateY();
-            bipedLeftArm.rotateAngleZ = pose.getLeftArmRotateZ();
+        if ((mask & PoseBuffer.MASK_LEFT_ARM) != 0) {
+            reanim$applyRotation(bipedLeftArm, pose, PoseBuffer.PART_LEFT_ARM);
         }
         
-        if (pose.overridesRightLeg()) {
-            bipedRightLeg.rotateAngleX = pose.getRightLegRotateX();
-            bipedRightLeg.rotateAngleY = pose.getRightLegRotateY();
-            bipedRightLeg.rotateAngleZ = pose.getRightLegRotateZ();
+        if ((mask & PoseBuffer.MASK_RIGHT_LEG) != 0) {
+            reanim$applyRotation(bipedRightLeg, pose, PoseBuffer.PART_RIGHT_LEG);
         }
         
-        if (pose.overridesLeftLeg()) {
-            bipedLeftLeg.rotateAngleX = pose.getLeftLegRotateX();
-            bipedLeftLeg.rotateAngleY = pose.getLeftLegRotateY();
-            bipedLeftLeg.rotateAngleZ = pose.getLeftLegRotateZ();
+        if ((mask & PoseBuffer.MASK_LEFT_LEG) != 0) {
+            reanim$applyRotation(bipedLeftLeg, pose, PoseBuffer.PART_LEFT_LEG);
         }
         
-        if (pose.overridesBody()) {
-            bipedBody.rotateAngleX = pose.getBodyRotateX();
-            bipedBody.rotateAngleY = pose.getBodyRotateY();
-            bipedBody.rotateAngleZ = pose.getBodyRotateZ();
+        if ((mask & PoseBuffer.MASK_BODY) != 0) {
+            reanim$applyRotation(bipedBody, pose, PoseBuffer.PART_BODY);
+        }
+    }
+    
+    private static void reanim$applyRotation(ModelRenderer part, PoseBuffer pose, int partIndex) {
+        float[] channels = pose.channels();
+        float weight = pose.getWeight(partIndex);
+        int i = partIndex * 3;
+        if (pose.isAdditive(partIndex)) {
+            // Deltas on top of the vanilla angles
+            part.rotateAngleX += channels[i] * weight;
+            part.rotateAngleY += channels[i + 1] * weight;
+            part.rotateAngleZ += channels[i + 2] * weight;
+            return;
+        }
+        if (weight >= 1.0f) {
+            part.rotateAngleX = channels[i];
+            part.rotateAngleY = channels[i + 1];
+            part.rotateAngleZ = channels[i + 2];
+            return;
         }
+        // Blend over the vanilla angles set earlier in setRotationAngles
+        part.rotateAngleX += (channels[i] - part.rotateAngleX) * weight;
+        part.rotateAngleY += (channels[i + 1] - part.rotateAngleY) * weight;
+        part.rotateAngleZ += (channels[i + 2] - part.rotateAngleZ) * weight;
     }
 }
@@ -0,0 +1,76 @@
+package com.github.yyyumeniku.reanim.network;
+
+import javax.annotation.Nullable;
+
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Maps animations to the compact indices used in sync packets.
+ *
+ * Wire indices are the server's registry handles. The server sends its palette
+ * (index to animation ID) once when a player logs in, and the client maps every
+ * index to its own handle. Animations registered after the first handshake are
+ * not in every client's palette, so they are sent by name instead.
+ */
+public final class AnimationPalette {
+    
+    // Server: indices every connected client knows, or -1 before the first handshake
+    private static int serverSize = -1;
+    
+    // Client: server index to local animation ID and handle
+    private static ResourceLocation[] clientNames = new ResourceLocation[0];
+    private static int[] clientHandles = new int[0];
+    
+    private AnimationPalette() {}
+    
+    /**
+     * Build the handshake for a player joining the server.
+     */
+    public static AnimationPaletteMessage createHandshake() {
+        ResourceLocation[] names = new ResourceLocation[AnimationRegistry.getHandleCount()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = AnimationRegistry.nameOf(i);
+        }
+        if (serverSize < 0) {
+            // Handles are append-only, so later handshakes only ever contain more
+            serverSize = names.length;
+        }
+        return new AnimationPaletteMessage(names);
+    }
+    
+    /**
+     * Get the wire index of an animation handle.
+     * @return The index, or {@link AnimationRegistry#NO_ID} if it must be sent by name
+     */
+    public static int indexOf(int handle) {
+        return handle >= 0 && handle < serverSize ? handle : AnimationRegistry.NO_ID;
+    }
+    
+    /** Forget the handshake state; called when the server starts */
+    public static void resetServer() {
+        serverSize = -1;
+    }
+    
+    /** Install the palette received from the server */
+    static void setClientPalette(ResourceLocation[] names) {
+        int[] handles = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            handles[i] = names[i] != null ? AnimationRegistry.idOf(names[i]) : AnimationRegistry.NO_ID;
+        }
+        clientNames = names;
+        clientHandles = handles;
+    }
+    
+    /** Local handle for a server index, or {@link AnimationRegistry#NO_ID} */
+    static int clientHandle(int index) {
+        return index >= 0 && index < clientHandles.length ? clientHandles[index] : AnimationRegistry.NO_ID;
+    }
+    
+    /** Animation ID for a server index, or null if unknown */
+    @Nullable
+    static ResourceLocation clientName(int index) {
+        return index >= 0 && index < clientNames.length ? clientNames[index] : null;
+    }
+}
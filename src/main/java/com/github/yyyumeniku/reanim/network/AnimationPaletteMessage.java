@@ -0,0 +1,57 @@
+package com.github.yyyumeniku.reanim.network;
+
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * Packet sent from server to client on login with the animation ID of every
+ * registry index, so later sync packets can refer to animations by index.
+ */
+public class AnimationPaletteMessage implements IMessage {
+    
+    private ResourceLocation[] names;
+    
+    public AnimationPaletteMessage() {}
+    
+    public AnimationPaletteMessage(ResourceLocation[] names) {
+        this.names = names;
+    }
+    
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        int start = buf.readerIndex();
+        names = new ResourceLocation[ByteBufUtils.readVarInt(buf, 5)];
+        for (int i = 0; i < names.length; i++) {
+            String name = ByteBufUtils.readUTF8String(buf);
+            // Empty = unregistered handle
+            names[i] = name.isEmpty() ? null : new ResourceLocation(name);
+        }
+        AnimationMetrics.packetReceived(buf.readerIndex() - start);
+    }
+    
+    @Override
+    public void toBytes(ByteBuf buf) {
+        int start = buf.writerIndex();
+        ByteBufUtils.writeVarInt(buf, names.length, 5);
+        for (ResourceLocation name : names) {
+            ByteBufUtils.writeUTF8String(buf, name != null ? name.toString() : "");
+        }
+        AnimationMetrics.packetSent(buf.writerIndex() - start);
+    }
+    
+    public static class Handler implements IMessageHandler<AnimationPaletteMessage, IMessage> {
+        @Override
+        public IMessage onMessage(AnimationPaletteMessage msg, MessageContext ctx) {
+            // Install before any sync packet that follows it is handled
+            Minecraft.getMinecraft().addScheduledTask(() -> AnimationPalette.setClientPalette(msg.names));
+            return null;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.github.yyyumeniku.reanim.network;
 
 import com.github.yyyumeniku.reanim.api.AnimationAPI;
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
 
 import io.netty.buffer.ByteBuf;
 import net.minecraft.entity.player.EntityPlayerMP;
@@ -33,28 +34,42 @@ public class AnimationPlayMessage implements IMessage {
     
     @Override
     public void fromBytes(ByteBuf buf) {
+        int start = buf.readerIndex();
         animationId = ByteBufUtils.readUTF8String(buf);
         stop = buf.readBoolean();
+        AnimationMetrics.packetReceived(buf.readerIndex() - start);
     }
     
     @Override
     public void toBytes(ByteBuf buf) {
+        int start = buf.writerIndex();
         ByteBufUtils.writeUTF8String(buf, animationId);
         buf.writeBoolean(stop);
+        AnimationMetrics.packetSent(buf.writerIndex() - start);
     }
     
     public static class Handler implements IMessageHandler<AnimationPlayMessage, IMessage> {
         @Override
         public IMessage onMessage(AnimationPlayMessage msg, MessageContext ctx) {
             EntityPlayerMP player = ctx.getServerHandler().player;
+            if (!msg.stop && msg.animationId.isEmpty()) {
+                return null;
+            }
+            
+            // Filter floods and repeats here on the Netty thread, before touching the server thread
+            ResourceLocation animationId = msg.stop ? null : new ResourceLocation(msg.animationId);
+            if (!PlayRequestLimiter.tryAccept(player, animationId)) {
+                return null;
+            }
+            
             player.getServer().addScheduledTask(() -> {
-                if (msg.stop) {
+                if (animationId == null) {
                     AnimationAPI.stop(player);
-                } else if (!msg.animationId.isEmpty()) {
-                    AnimationAPI.play(player, new ResourceLocation(msg.animationId));
+                } else {
+                    AnimationAPI.play(player, animationId);
                 }
-                
-                // TODO: Broadcast to nearby players
+                PlayRequestLimiter.applied(player, animationId);
+                // Tracking players are updated by AnimationSyncBatcher at the end of the tick
             });
             return null;
         }
@@ -0,0 +1,81 @@
+package com.github.yyyumeniku.reanim.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.yyyumeniku.reanim.core.AnimationController;
+
+import net.minecraft.entity.EntityLivingBase;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.world.WorldServer;
+
+/**
+ * Collects server-side animation state changes during a tick and sends them at
+ * the end of it, one batched {@link AnimationSyncMessage} per observing player.
+ *
+ * A controller changed several times in a tick is sent once with its final state,
+ * and all entities an observer tracks share that observer's packet.
+ * Server thread only.
+ */
+public final class AnimationSyncBatcher {
+    
+    private static final Set<AnimationController> DIRTY = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static final Map<EntityPlayerMP, List<AnimationSyncMessage.Entry>> BATCHES = new IdentityHashMap<>();
+    
+    private AnimationSyncBatcher() {}
+    
+    /**
+     * Queue a controller's state to be sent at the end of the tick.
+     */
+    public static void markDirty(AnimationController controller) {
+        DIRTY.add(controller);
+    }
+    
+    /**
+     * Send every queued change to the players tracking the changed entities.
+     * Called at the end of each server tick.
+     */
+    public static void flush() {
+        if (DIRTY.isEmpty()) return;
+        
+        for (AnimationController controller : DIRTY) {
+            EntityLivingBase entity = controller.getOwner();
+            if (entity == null || entity.isDead || !(entity.world instanceof WorldServer)) continue;
+            
+            AnimationSyncMessage.Entry entry = new AnimationSyncMessage.Entry(entity.getEntityId(), controller, entity.world.getTotalWorldTime());
+            for (EntityPlayer tracker : ((WorldServer) entity.world).getEntityTracker().getTrackingPlayers(entity)) {
+                add((EntityPlayerMP) tracker, entry);
+            }
+            if (entity instanceof EntityPlayerMP) {
+                // Players don't track themselves
+                add((EntityPlayerMP) entity, entry);
+            }
+        }
+        DIRTY.clear();
+        
+        for (Map.Entry<EntityPlayerMP, List<AnimationSyncMessage.Entry>> batch : BATCHES.entrySet()) {
+            PacketHandler.INSTANCE.sendTo(new AnimationSyncMessage(batch.getValue()), batch.getKey());
+        }
+        BATCHES.clear();
+    }
+    
+    /** Drop queued changes; called when the server starts */
+    public static void reset() {
+        DIRTY.clear();
+        BATCHES.clear();
+    }
+    
+    private static void add(EntityPlayerMP player, AnimationSyncMessage.Entry entry) {
+        List<AnimationSyncMessage.Entry> batch = BATCHES.get(player);
+        if (batch == null) {
+            batch = new ArrayList<>();
+            BATCHES.put(player, batch);
+        }
+        batch.add(entry);
+    }
+}
@@ -1,11 +1,20 @@
 package com.github.yyyumeniku.reanim.network;
 
-import com.github.yyyumeniku.reanim.capability.AnimationProvider;
-import com.github.yyyumeniku.reanim.capability.IAnimationCapability;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.github.yyyumeniku.reanim.api.AnimationAPI;
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+import com.github.yyyumeniku.reanim.core.AnimationMetrics;
 
 import io.netty.buffer.ByteBuf;
 import net.minecraft.client.Minecraft;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityLivingBase;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.fml.common.network.ByteBufUtils;
 import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
@@ -13,54 +22,214 @@ import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
 import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
 
 /**
- * Packet sent from server to client to sync animation state.
+ * Packet sent from server to client to sync the animation state of one or more entities.
+ *
+ * Layout: varint entry count, then per entry a varint entity ID, a flags byte and,
+ * if playing, either a varint palette index (see {@link AnimationPalette}) or the
+ * animation ID string, the playhead as a varint in 1/256 ticks,
+ * the low 32 bits of the server world time it was taken at and, if not 1.0, the
+ * speed as a float.
+ *
+ * Entries are only sent when playback changes. Clients play on from the stamped
+ * position on their own world clock and use later entries to correct drift.
  */
 public class AnimationSyncMessage implements IMessage {
     
-    private int entityId;
-    private String animationId; // Empty string = no animation
-    private int currentTick;
+    private static final int FLAG_PLAYING = 1;
+    private static final int FLAG_BY_NAME = 2;
+    private static final int FLAG_PAUSED = 4;
+    private static final int FLAG_SPEED = 8;
+    private static final int FLAG_STAMPED = 16;
+    
+    // Fixed-point scale of the playhead; fractional playheads come from speeds other than 1 and seeks
+    private static final int PLAYHEAD_SCALE = 256;
+    
+    private List<Entry> entries;
     
     public AnimationSyncMessage() {}
     
-    public AnimationSyncMessage(int entityId, ResourceLocation animationId, int currentTick) {
-        this.entityId = entityId;
-        this.animationId = animationId != null ? animationId.toString() : "";
-        this.currentTick = currentTick;
+    public AnimationSyncMessage(int entityId, @Nullable ResourceLocation animationId, int currentTick) {
+        this(Collections.singletonList(new Entry(entityId, animationId, currentTick)));
+    }
+    
+    /**
+     * Capture the full playback state of a controller.
+     */
+    public AnimationSyncMessage(int entityId, IAnimationController controller, long worldTime) {
+        this(Collections.singletonList(new Entry(entityId, controller, worldTime)));
+    }
+    
+    /**
+     * Sync several entities in one packet.
+     */
+    public AnimationSyncMessage(List<Entry> entries) {
+        this.entries = entries;
     }
     
     @Override
     public void fromBytes(ByteBuf buf) {
-        entityId = buf.readInt();
-        animationId = ByteBufUtils.readUTF8String(buf);
-        currentTick = buf.readInt();
+        int start = buf.readerIndex();
+        int count = ByteBufUtils.readVarInt(buf, 5);
+        entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(Entry.read(buf));
+        }
+        AnimationMetrics.packetReceived(buf.readerIndex() - start);
     }
     
     @Override
     public void toBytes(ByteBuf buf) {
-        buf.writeInt(entityId);
-        ByteBufUtils.writeUTF8String(buf, animationId);
-        buf.writeInt(currentTick);
+        int start = buf.writerIndex();
+        ByteBufUtils.writeVarInt(buf, entries.size(), 5);
+        for (Entry entry : entries) {
+            entry.write(buf);
+        }
+        AnimationMetrics.packetSent(buf.writerIndex() - start);
+    }
+    
+    /**
+     * Animation state of a single entity, captured when the entry is created.
+     */
+    public static final class Entry {
+        
+        private int entityId;
+        @Nullable private ResourceLocation animationId; // Null = no animation, or sent by index
+        private int animationIndex = AnimationRegistry.NO_ID;
+        private float playhead;
+        private float speed = 1.0f;
+        private boolean paused;
+        private boolean stamped;
+        private int worldTime;
+        
+        private Entry() {}
+        
+        public Entry(int entityId, @Nullable ResourceLocation animationId, int currentTick) {
+            this(entityId, animationId, (float) currentTick);
+        }
+        
+        private Entry(int entityId, @Nullable ResourceLocation animationId, float playhead) {
+            this.entityId = entityId;
+            this.animationId = animationId;
+            this.animationIndex = animationId != null ? AnimationPalette.indexOf(AnimationRegistry.idOf(animationId)) : AnimationRegistry.NO_ID;
+            this.playhead = playhead;
+        }
+        
+        /**
+         * Capture the playback state of a controller.
+         * @param worldTime Server world time the state was captured at
+         */
+        public Entry(int entityId, IAnimationController controller, long worldTime) {
+            this(entityId, controller.getCurrentAnimationId(), controller.getPlayhead());
+            this.speed = controller.getSpeed();
+            this.paused = controller.isPaused();
+            this.stamped = true;
+            this.worldTime = (int) worldTime;
+        }
+        
+        /**
+         * Where the playhead should be at a client world time, extrapolated from the stamp.
+         */
+        float expectedTick(long clientWorldTime) {
+            if (!stamped || paused) return playhead;
+            // Only the low bits are sent; int subtraction handles the wrap
+            int elapsed = (int) clientWorldTime - worldTime;
+            return playhead + elapsed * speed;
+        }
+        
+        static Entry read(ByteBuf buf) {
+            Entry entry = new Entry();
+            entry.entityId = ByteBufUtils.readVarInt(buf, 5);
+            int flags = buf.readByte();
+            if ((flags & FLAG_PLAYING) == 0) return entry;
+            
+            if ((flags & FLAG_BY_NAME) != 0) {
+                entry.animationId = new ResourceLocation(ByteBufUtils.readUTF8String(buf));
+            } else {
+                entry.animationIndex = ByteBufUtils.readVarInt(buf, 5);
+            }
+            entry.playhead = (float) ByteBufUtils.readVarInt(buf, 5) / PLAYHEAD_SCALE;
+            if ((flags & FLAG_STAMPED) != 0) {
+                entry.stamped = true;
+                entry.worldTime = buf.readInt();
+            }
+            entry.speed = (flags & FLAG_SPEED) != 0 ? buf.readFloat() : 1.0f;
+            entry.paused = (flags & FLAG_PAUSED) != 0;
+            return entry;
+        }
+        
+        void write(ByteBuf buf) {
+            ByteBufUtils.writeVarInt(buf, entityId, 5);
+            boolean playing = animationId != null || animationIndex != AnimationRegistry.NO_ID;
+            if (!playing) {
+                buf.writeByte(0);
+                return;
+            }
+            
+            boolean byName = animationIndex == AnimationRegistry.NO_ID;
+            int flags = FLAG_PLAYING;
+            if (byName) flags |= FLAG_BY_NAME;
+            if (paused) flags |= FLAG_PAUSED;
+            if (speed != 1.0f) flags |= FLAG_SPEED;
+            if (stamped) flags |= FLAG_STAMPED;
+            buf.writeByte(flags);
+            
+            if (byName) {
+                ByteBufUtils.writeUTF8String(buf, animationId.toString());
+            } else {
+                ByteBufUtils.writeVarInt(buf, animationIndex, 5);
+            }
+            ByteBufUtils.writeVarInt(buf, Math.max(0, Math.round(playhead * PLAYHEAD_SCALE)), 5);
+            if (stamped) {
+                buf.writeInt(worldTime);
+            }
+            if (speed != 1.0f) {
+                buf.writeFloat(speed);
+            }
+        }
     }
     
     public static class Handler implements IMessageHandler<AnimationSyncMessage, IMessage> {
         @Override
         public IMessage onMessage(AnimationSyncMessage msg, MessageContext ctx) {
             Minecraft.getMinecraft().addScheduledTask(() -> {
-                Entity entity = Minecraft.getMinecraft().world.getEntityByID(msg.entityId);
-                if (entity != null) {
-                    IAnimationCapability cap = entity.getCapability(AnimationProvider.ANIMATION_CAP, null);
-                    if (cap != null) {
-                        if (msg.animationId.isEmpty()) {
-                            cap.setCurrentAnimation(null);
-                        } else {
-                            cap.setCurrentAnimation(new ResourceLocation(msg.animationId));
-                            cap.setCurrentTick(msg.currentTick);
-                        }
+                for (Entry entry : msg.entries) {
+                    Entity entity = Minecraft.getMinecraft().world.getEntityByID(entry.entityId);
+                    if (entity instanceof EntityLivingBase) {
+                        apply((EntityLivingBase) entity, entry);
                     }
                 }
             });
             return null;
         }
+        
+        private static void apply(EntityLivingBase entity, Entry entry) {
+            int handle = AnimationPalette.clientHandle(entry.animationIndex);
+            ResourceLocation id = entry.animationId != null ? entry.animationId : AnimationPalette.clientName(entry.animationIndex);
+            if (id == null || !AnimationRegistry.isRegistered(id)) {
+                // Stopped, or an animation this client doesn't have
+                IAnimationController controller = AnimationAPI.getController(entity);
+                if (controller != null) {
+                    controller.stop();
+                }
+                return;
+            }
+            
+            IAnimationController controller = AnimationAPI.getOrCreateController(entity);
+            float expected = entry.expectedTick(entity.world.getTotalWorldTime());
+            if (controller.isPlaying(id) && controller.getSpeed() == entry.speed && controller.isPaused() == entry.paused) {
+                // Already predicting this playback locally; only fix drift
+                controller.correctDrift(expected);
+                return;
+            }
+            
+            if (handle != AnimationRegistry.NO_ID) {
+                controller.play(handle);
+            } else {
+                controller.play(id);
+            }
+            controller.setSpeed(entry.speed);
+            controller.seek(expected);
+            controller.setPaused(entry.paused);
+        }
     }
 }
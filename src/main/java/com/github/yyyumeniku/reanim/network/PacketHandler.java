@@ -32,5 +32,13 @@ public class PacketHandler {
             id++,
             Side.SERVER
         );
+        
+        // Server -> Client: Animation index palette, sent on login
+        INSTANCE.registerMessage(
+            AnimationPaletteMessage.Handler.class,
+            AnimationPaletteMessage.class,
+            id++,
+            Side.CLIENT
+        );
     }
 }
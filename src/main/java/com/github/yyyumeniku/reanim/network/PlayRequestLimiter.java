@@ -0,0 +1,151 @@
+package com.github.yyyumeniku.reanim.network;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import com.github.yyyumeniku.reanim.REanimConfig;
+import com.github.yyyumeniku.reanim.api.AnimationAPI;
+import com.github.yyyumeniku.reanim.api.AnimationRegistry;
+import com.github.yyyumeniku.reanim.api.IAnimationController;
+
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Filters {@link AnimationPlayMessage}s on the Netty thread, before any work is
+ * scheduled on the server thread.
+ *
+ * Each player has a token bucket refilled at {@link REanimConfig#playRequestsPerSecond}
+ * up to {@link REanimConfig#playRequestBurst}. Requests for unknown animations, or
+ * for what the player is already doing, are dropped without using a token. So are
+ * repeats of the last accepted request until the server thread has applied it, since
+ * a burst of them arrives before the controller shows the change.
+ */
+public final class PlayRequestLimiter {
+    
+    private static final ConcurrentHashMap<UUID, Bucket> BUCKETS = new ConcurrentHashMap<>();
+    
+    private static final LongAdder ACCEPTED = new LongAdder();
+    private static final LongAdder DROPPED_RATE_LIMITED = new LongAdder();
+    private static final LongAdder DROPPED_DUPLICATE = new LongAdder();
+    private static final LongAdder DROPPED_UNKNOWN = new LongAdder();
+    
+    private PlayRequestLimiter() {}
+    
+    /**
+     * Decide whether a play or stop request should reach the server thread.
+     * @param animationId Requested animation, or null for a stop request
+     * @return true if the request should be scheduled
+     */
+    static boolean tryAccept(EntityPlayerMP player, @Nullable ResourceLocation animationId) {
+        if (animationId != null && !AnimationRegistry.isRegistered(animationId)) {
+            DROPPED_UNKNOWN.increment();
+            return false;
+        }
+        
+        // Reading the controller off-thread is racy, but at worst lets one repeat through
+        IAnimationController controller = AnimationAPI.getController(player);
+        Bucket bucket = BUCKETS.computeIfAbsent(player.getUniqueID(), uuid -> new Bucket());
+        boolean duplicate = animationId != null
+            ? controller != null && controller.isPlaying(animationId)
+            : controller == null || !controller.isPlaying();
+        if (duplicate || bucket.isPending(animationId)) {
+            DROPPED_DUPLICATE.increment();
+            return false;
+        }
+        
+        if (!bucket.tryTake(System.nanoTime(), animationId)) {
+            DROPPED_RATE_LIMITED.increment();
+            return false;
+        }
+        ACCEPTED.increment();
+        return true;
+    }
+    
+    /**
+     * Called on the server thread once an accepted request has been applied, so the
+     * same request is judged by the controller again from now on.
+     * @param animationId The applied request's animation, or null for a stop request
+     */
+    static void applied(EntityPlayerMP player, @Nullable ResourceLocation animationId) {
+        Bucket bucket = BUCKETS.get(player.getUniqueID());
+        if (bucket != null) {
+            bucket.clearPending(animationId);
+        }
+    }
+    
+    /** Forget a player's bucket when they log out */
+    public static void remove(EntityPlayerMP player) {
+        BUCKETS.remove(player.getUniqueID());
+    }
+    
+    /** Requests passed on to the server thread */
+    public static long getAccepted() {
+        return ACCEPTED.sum();
+    }
+    
+    /** Requests dropped because the player ran out of tokens */
+    public static long getDroppedRateLimited() {
+        return DROPPED_RATE_LIMITED.sum();
+    }
+    
+    /** Requests dropped because the animation was already playing (or already stopped) or requested */
+    public static long getDroppedDuplicate() {
+        return DROPPED_DUPLICATE.sum();
+    }
+    
+    /** Requests dropped because the animation is not registered */
+    public static long getDroppedUnknown() {
+        return DROPPED_UNKNOWN.sum();
+    }
+    
+    /** Zero the request counters, for {@code /reanim stats reset} */
+    public static void resetCounters() {
+        ACCEPTED.reset();
+        DROPPED_RATE_LIMITED.reset();
+        DROPPED_DUPLICATE.reset();
+        DROPPED_UNKNOWN.reset();
+    }
+    
+    /**
+     * Token bucket for one player, plus the last accepted request while the server
+     * thread has not applied it yet. Synchronized, but only ever contended by the
+     * player's own connection and the server thread.
+     */
+    private static final class Bucket {
+        private double tokens = REanimConfig.playRequestBurst;
+        private long lastRefill = System.nanoTime();
+        private boolean pending;
+        @Nullable private ResourceLocation pendingId;
+        
+        synchronized boolean isPending(@Nullable ResourceLocation animationId) {
+            return pending && Objects.equals(pendingId, animationId);
+        }
+        
+        synchronized void clearPending(@Nullable ResourceLocation animationId) {
+            // A newer request may have been accepted since; keep that one
+            if (isPending(animationId)) {
+                pending = false;
+                pendingId = null;
+            }
+        }
+        
+        /** Take a token for a request and remember it as pending if there was one */
+        synchronized boolean tryTake(long now, @Nullable ResourceLocation animationId) {
+            double refill = (now - lastRefill) / 1.0e9 * REanimConfig.playRequestsPerSecond;
+            tokens = Math.min(REanimConfig.playRequestBurst, tokens + refill);
+            lastRefill = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            pending = true;
+            pendingId = animationId;
+            return true;
+        }
+    }
+}